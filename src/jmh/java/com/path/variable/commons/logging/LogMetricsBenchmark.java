@@ -0,0 +1,80 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what enabled metrics add to a log call whose appender does nothing, which is the worst case relative to
+ * the cost of the call. Disabled metrics should not differ from a context without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LogMetricsBenchmark {
+
+    @Param({"false", "true"})
+    private boolean enabled;
+
+    private LogLevelService logLevelService;
+
+    private Logger logger;
+
+    private Object orderId;
+
+    @Setup
+    public void setUp() {
+        logger = (Logger) LoggerFactory.getLogger("com.path.variable.commons.benchmark.Metrics");
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        AppenderBase<ILoggingEvent> appender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+            }
+        };
+        appender.setName("noop");
+        appender.setContext(logger.getLoggerContext());
+        appender.start();
+        logger.addAppender(appender);
+        logLevelService = new LogLevelService();
+        logLevelService.getMetrics().setEnabled(enabled);
+        orderId = 4711L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        logLevelService.shutdown();
+    }
+
+    @Benchmark
+    public void enabledInfo() {
+        logger.info("Processed order {}", orderId);
+    }
+
+    @Benchmark
+    public void disabledDebug() {
+        logger.debug("Processed order {}", orderId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the volume governor adds to an enabled log call, once for the counting alone and once for a whole
+ * call to a logger without appenders, with and without the governor.
+ * The budget is high enough that the logger of the benchmark is never demoted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LogVolumeGovernorBenchmark {
+
+    @Param({"false", "true"})
+    private boolean governed;
+
+    private LogLevelService logLevelService;
+
+    private LogVolumeGovernor governor;
+
+    private Logger logger;
+
+    private Object orderId;
+
+    @Setup
+    public void setUp() {
+        logger = (Logger) LoggerFactory.getLogger("com.path.variable.commons.benchmark.Volume");
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        LogVolumeBudget budget = LogVolumeBudget.builder(Long.MAX_VALUE / 2).checkInterval(Duration.ofSeconds(1)).build();
+        governor = new LogVolumeGovernor((LoggerContext) LoggerFactory.getILoggerFactory(), budget, demotion -> { });
+        logLevelService = new LogLevelService();
+        if (governed) {
+            logLevelService.enableVolumeGovernor(budget, demotion -> { });
+        }
+        orderId = 4711L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        logLevelService.shutdown();
+    }
+
+    @Benchmark
+    public FilterReply countEvent() {
+        return governor.decide(null, logger, Level.INFO, "Processed order {}", null, null);
+    }
+
+    @Benchmark
+    public void enabledInfo() {
+        logger.info("Processed order {}", orderId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.path.variable.commons.logging;
+
+import com.path.variable.commons.logging.dto.MdcOverrideRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a disabled debug call costs while MDC overrides are registered that do not match the logging thread,
+ * the path all other traffic takes while one tenant is debugged. Run with "-prof gc" to see that the filter allocates
+ * nothing, the 24 bytes of the parameterized call are the argument array logback creates for any turbo filter.
+ * The overrides target the logger of the benchmark, so every one of them is checked against the MDC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MdcOverrideBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger("com.path.variable.commons.benchmark.Checkout");
+
+    @Param({"0", "1", "16"})
+    private int overrides;
+
+    private LogLevelService logLevelService;
+
+    private Object orderId;
+
+    @Setup
+    public void setUp() {
+        logLevelService = new LogLevelService();
+        for (int i = 0; i < overrides; i++) {
+            logLevelService.addMdcOverride(new MdcOverrideRequest("com.path.variable.commons.benchmark", "DEBUG",
+                    "tenant", "debugged-" + i, null));
+        }
+        orderId = 4711L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        logLevelService.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class RequestContext {
+
+        @Setup
+        public void setUp() {
+            MDC.put("tenant", "regular");
+        }
+
+        @TearDown
+        public void tearDown() {
+            MDC.clear();
+        }
+    }
+
+    @Benchmark
+    public void disabledDebug(RequestContext context) {
+        LOG.debug("Checking order {}", orderId);
+    }
+
+    @Benchmark
+    public boolean isDebugEnabled(RequestContext context) {
+        return LOG.isDebugEnabled();
+    }
+}
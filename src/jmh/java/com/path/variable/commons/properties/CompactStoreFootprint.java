@@ -0,0 +1,51 @@
+package com.path.variable.commons.properties;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Heap footprint comparison of the property store layouts for a feature flag style configuration with many keys
+ * and few distinct values. Measures the retained heap after a full GC, which is what a heap histogram would show.
+ * Run with ex. "java -Xmx2g -cp build/classes/java/jmh:build/classes/java/main:... CompactStoreFootprint 500000".
+ */
+public class CompactStoreFootprint {
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+
+        System.out.printf("%,d entries%n", entries);
+        report("java.util.Properties", () -> {
+            var properties = new Properties();
+            properties.putAll(generate(entries));
+            return properties;
+        });
+        report("immutable map (default)", () -> Map.copyOf(generate(entries)));
+        report("compact store", () -> CompactPropertyStore.of(generate(entries)));
+    }
+
+    private static Map<String, String> generate(int entries) {
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < entries; i++) {
+            // new string instances per entry, like values parsed from a file
+            map.put("feature.tenant" + i + ".checkout.enabled", new String(i % 3 == 0 ? "true" : "false"));
+        }
+        return map;
+    }
+
+    private static void report(String layout, Supplier<Map<?, ?>> factory) {
+        var before = usedHeap();
+        var store = factory.get();
+        var after = usedHeap();
+        System.out.printf("%-25s %,12d bytes (%d keys)%n", layout, after - before, store.size());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,65 @@
+package com.path.variable.commons.properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a tuning knob through an {@link IntProperty} handle against a plain field read and against
+ * the string keyed {@link Configuration#getInteger(String, Integer)} lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConfigKeyBenchmark {
+
+    private static final String KEY = "benchmark.pool.size";
+
+    private int plainField;
+
+    private volatile int volatileField;
+
+    private IntProperty handle;
+
+    private Configuration configuration;
+
+    @Setup
+    public void setUp() {
+        configuration = Configuration.getConfiguration();
+        handle = configuration.intProperty(KEY, 10);
+        plainField = 10;
+        volatileField = 10;
+    }
+
+    @Benchmark
+    public int plainField() {
+        return plainField;
+    }
+
+    @Benchmark
+    public int volatileField() {
+        return volatileField;
+    }
+
+    @Benchmark
+    public int handle() {
+        return handle.getAsInt();
+    }
+
+    @Benchmark
+    public int getInteger() {
+        return configuration.getInteger(KEY, 10);
+    }
+}
@@ -0,0 +1,61 @@
+package com.path.variable.commons.properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of lookup metrics: a raw map read, a Configuration read with metrics disabled (the default) and a
+ * Configuration read with per key counting enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConfigurationMetricsBenchmark {
+
+    private static final String KEY = "service.pool.size";
+
+    private Map<String, String> rawValues;
+
+    private Configuration disabled;
+
+    private Configuration enabled;
+
+    @Setup
+    public void setUp() {
+        rawValues = Map.of(KEY, "10");
+        disabled = Configuration.bootstrap().values(rawValues).build();
+        enabled = Configuration.bootstrap().values(rawValues).build();
+        enabled.getMetrics().setEnabled(true);
+    }
+
+    @Benchmark
+    public String rawMap() {
+        return rawValues.get(KEY);
+    }
+
+    @Benchmark
+    public String metricsDisabled() {
+        return disabled.getString(KEY);
+    }
+
+    @Benchmark
+    public String metricsEnabled() {
+        return enabled.getString(KEY);
+    }
+}
@@ -0,0 +1,70 @@
+package com.path.variable.commons.properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares multi-threaded read throughput of the synchronized {@link Properties} store Configuration used to read
+ * from against the immutable snapshot it reads from now.
+ * Run with a higher thread count to reproduce production contention, ex. "-t 200".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConfigurationReadBenchmark {
+
+    private static final int KEYS = 256;
+
+    private Properties properties;
+
+    private ConfigurationSnapshot snapshot;
+
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        properties = new Properties();
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "service.tuning.key" + i;
+            properties.setProperty(keys[i], Integer.toString(i));
+        }
+        snapshot = new ConfigurationSnapshot(properties);
+    }
+
+    @Benchmark
+    public String synchronizedProperties() {
+        return properties.getProperty(nextKey());
+    }
+
+    @Benchmark
+    public String immutableSnapshot() {
+        return snapshot.get(nextKey());
+    }
+
+    @Benchmark
+    public String configurationGetString() {
+        return Configuration.getConfiguration().getString(nextKey());
+    }
+
+    private String nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+}
@@ -0,0 +1,79 @@
+package com.path.variable.commons.properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a cold start of Configuration, every fork constructs exactly one instance. Compares the default
+ * sequential loading with parallel loading of the default sources plus a number of additional files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ConfigurationStartupBenchmark {
+
+    private static final int FILES = 8;
+
+    private static final int ENTRIES_PER_FILE = 20_000;
+
+    private final List<Path> files = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            var file = Files.createTempFile("startup" + i, ".properties");
+            var content = new StringBuilder();
+            for (int j = 0; j < ENTRIES_PER_FILE; j++) {
+                content.append("file").append(i).append(".key").append(j).append('=').append(j).append('\n');
+            }
+            Files.writeString(file, content);
+            files.add(file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (var file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public Configuration defaultsOnly() {
+        return Configuration.getConfiguration();
+    }
+
+    @Benchmark
+    public Configuration sequential() {
+        var builder = Configuration.bootstrap().defaults();
+        files.forEach(builder::file);
+        return builder.build();
+    }
+
+    @Benchmark
+    public Configuration parallel() {
+        var builder = Configuration.bootstrap().defaults();
+        files.forEach(builder::file);
+        return builder.parallel().build();
+    }
+}
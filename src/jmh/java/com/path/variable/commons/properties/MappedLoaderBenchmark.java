@@ -0,0 +1,71 @@
+package com.path.variable.commons.properties;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Loads a generated 100 MB routing style property file through the stream based {@link FileSource} and the
+ * memory mapped {@link MappedFileSource}. Run with "-prof gc" to compare the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class MappedLoaderBenchmark {
+
+    private static final long TARGET_SIZE = 100L * 1024 * 1024;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("routing", ".properties");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, ISO_8859_1)) {
+            long written = 0;
+            for (int i = 0; written < TARGET_SIZE; i++) {
+                var line = i % 50 == 0
+                        ? "# tenant group " + i + "\n"
+                        : "routing.tenant" + i + ".region.eu-west-" + (i % 3)
+                          + " = https\\://backend-" + (i % 17) + ".internal\\:8443/api, weight=" + (i % 100) + "\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Properties streamed() {
+        return ConfigurationSource.file(file).load();
+    }
+
+    @Benchmark
+    public Properties mapped() {
+        return ConfigurationSource.mappedFile(file).load();
+    }
+}
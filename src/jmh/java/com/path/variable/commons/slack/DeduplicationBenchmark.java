@@ -0,0 +1,74 @@
+package com.path.variable.commons.slack;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a suppressed repetition, which is what an error storm pays per message.
+ * Only the first occurrence of every message is sent, to a local stub, during the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeduplicationBenchmark {
+
+	private static final String[] MESSAGES = {
+			"Connection refused: orders-db:5432",
+			"Timeout calling payment gateway",
+			"Disk usage above 95% on /var/lib/data",
+			"Circuit breaker open for inventory-service"
+	};
+
+	private HttpServer server;
+
+	private DeduplicatingSlackHook dedup;
+
+	@Setup
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/hook", exchange -> {
+			try (exchange) {
+				exchange.getRequestBody().readAllBytes();
+				exchange.sendResponseHeaders(200, -1);
+			}
+		});
+		server.start();
+		var url = "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+		var hook = new SlackHook(url, SlackTransport.shared(), SlackRetryPolicy.none());
+		dedup = DeduplicatingSlackHook.builder(hook).window(Duration.ofHours(1)).build();
+		for (var message : MESSAGES) {
+			dedup.sendPlainText(message);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		dedup.close();
+		server.stop(0);
+	}
+
+	@Benchmark
+	public void suppressedRepetition() {
+		dedup.sendPlainText(MESSAGES[(int) (Thread.currentThread().getId() & 3)]);
+	}
+}
@@ -0,0 +1,68 @@
+package com.path.variable.commons.slack;
+
+import org.apache.http.HttpEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building and serializing a fresh {@link SlackMessage} per alert against rendering a precompiled
+ * {@link SlackMessageTemplate} with the same texts. Run with "-prof gc" to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SlackMessageTemplateBenchmark {
+
+	private SlackMessageTemplate template;
+
+	private Map<String, Object> values;
+
+	private int sequence;
+
+	@Setup
+	public void setUp() {
+		template = SlackMessageTemplate.builder()
+		                               .section("*{service}* is down")
+		                               .section("*Status:* {status} after {latency} ms",
+				                               "https://grafana.example.com/render/{service}.png", "latency graph")
+		                               .section("Reported by {host}")
+		                               .build();
+		values = new HashMap<>();
+		values.put("service", "orders-api");
+		values.put("status", "503");
+		values.put("host", "node-17");
+	}
+
+	@Benchmark
+	public HttpEntity messageTree() throws IOException {
+		var message = new SlackMessage();
+		message.addSection().getText().setText("*" + values.get("service") + "* is down");
+		var status = message.addSection().getText();
+		status.setText("*Status:* " + values.get("status") + " after " + sequence++ + " ms");
+		status.setImage("https://grafana.example.com/render/" + values.get("service") + ".png", "latency graph");
+		message.addSection().getText().setText("Reported by " + values.get("host"));
+		return SlackPayloadWriter.toEntity(message);
+	}
+
+	@Benchmark
+	public HttpEntity template() {
+		values.put("latency", sequence++);
+		return SlackPayloadWriter.toEntity(template, values);
+	}
+}
@@ -0,0 +1,67 @@
+package com.path.variable.commons.slack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing a message to a string and encoding it into a {@link StringEntity}, which is how SlackHook
+ * used to build requests, against {@link SlackPayloadWriter}.
+ * Run with "-prof gc" to compare allocation rates, ex. ./gradlew jmh -Pjmh.args="SlackPayloadBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SlackPayloadBenchmark {
+
+	/**
+	 * A typical alert is a single section, a large one is a digest of the maximum number of blocks.
+	 */
+	@Param({"1", "50"})
+	public int sections;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private SlackMessage message;
+
+	@Setup
+	public void setUp() {
+		message = new SlackMessage();
+		for (int i = 0; i < sections; i++) {
+			var text = message.addSection().getText();
+			text.setText("*Service* `orders-api` responded with 503 for <https://status.example.com/" + i
+					+ "|request " + i + "> after 30012 ms");
+			if (i % 5 == 0) {
+				text.setImage("https://grafana.example.com/render/latency-" + i + ".png", "latency graph");
+			}
+		}
+	}
+
+	@Benchmark
+	public HttpEntity objectMapperString() throws IOException {
+		return new StringEntity(mapper.writeValueAsString(message), ContentType.APPLICATION_JSON);
+	}
+
+	@Benchmark
+	public HttpEntity streamingWriter() throws IOException {
+		return SlackPayloadWriter.toEntity(message);
+	}
+}
@@ -0,0 +1,59 @@
+package com.path.variable.commons.slack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a caller pays to append an alert to the spool while Slack is unreachable, the worst case in which
+ * the spool fills up and rotates its segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SlackSpoolBenchmark {
+
+	private Path directory;
+
+	private SlackSpool spool;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("slack-spool-benchmark");
+		var hook = new SlackHook("http://127.0.0.1:1/hook", SlackTransport.shared(), SlackRetryPolicy.none());
+		spool = SlackSpool.builder(hook, directory).retryInterval(Duration.ofSeconds(1)).build();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		spool.close();
+		try (var files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public void append() {
+		spool.sendPlainText("*orders-api* responded with 503 after 30012 ms on node-17");
+	}
+}
@@ -0,0 +1,86 @@
+package com.path.variable.commons.slack;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares webhook throughput of a client per call without consuming the response, which is how SlackHook used to
+ * send, against hooks sharing a pooled {@link SlackTransport}. Both post to a local stub that answers like Slack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SlackTransportBenchmark {
+
+	private HttpServer server;
+
+	private String url;
+
+	private SlackTransport transport;
+
+	private SlackHook pooledHook;
+
+	@Setup
+	public void setUp() throws IOException {
+		// without it the stub delays every response on a kept alive connection by the client's delayed ACK
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(8));
+		server.createContext("/hook", exchange -> {
+			try (exchange) {
+				exchange.getRequestBody().readAllBytes();
+				var body = "ok".getBytes();
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+		transport = SlackTransport.builder().build();
+		pooledHook = new SlackHook(url, transport, SlackRetryPolicy.none());
+	}
+
+	@TearDown
+	public void tearDown() {
+		transport.close();
+		server.stop(0);
+	}
+
+	@Benchmark
+	public void clientPerCall() throws IOException {
+		try (var client = HttpClients.createDefault()) {
+			var post = new HttpPost(url);
+			post.setEntity(new StringEntity("{\"text\":\"benchmark\"}"));
+			post.setHeader("content-type", "application/json");
+			client.execute(post).close();
+		}
+	}
+
+	@Benchmark
+	public void pooledTransport() {
+		pooledHook.sendPlainText("benchmark");
+	}
+}
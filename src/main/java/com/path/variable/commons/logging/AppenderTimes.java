@@ -0,0 +1,62 @@
+package com.path.variable.commons.logging;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the time one appender took per event, kept as a histogram with power of two buckets.
+ * Percentiles are the upper bound of the bucket they fall into, so they overestimate by at most a factor of two.
+ */
+public class AppenderTimes {
+
+    private final String appenderName;
+
+    private final long[] buckets;
+
+    private final long count;
+
+    private final long maxNanos;
+
+    AppenderTimes(String appenderName, long[] buckets, long maxNanos) {
+        this.appenderName = appenderName;
+        this.buckets = buckets;
+        this.maxNanos = maxNanos;
+        long total = 0;
+        for (long bucket : buckets) {
+            total += bucket;
+        }
+        this.count = total;
+    }
+
+    public String getAppenderName() {
+        return appenderName;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     */
+    public Duration getPercentile(double percentile) {
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank && seen > 0) {
+                return Duration.ofNanos(Math.min(maxNanos, (1L << bucket) - 1));
+            }
+        }
+        return Duration.ZERO;
+    }
+
+    @Override
+    public String toString() {
+        return appenderName + ": " + count + " events, p50 " + getPercentile(50).toNanos() + " ns, p99 "
+                + getPercentile(99).toNanos() + " ns, max " + maxNanos + " ns";
+    }
+}
@@ -0,0 +1,108 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Times an appender of the logger context for {@link LogMetrics} without replacing it. The filter runs when the
+ * appender starts working on an event, an appender is done once the next timed appender or the {@link End} appender
+ * that follows the appenders of a logger sees the event. Both read the clock once, the measurement in between is
+ * kept per thread.
+ * Logback cannot remove a single filter from an appender, so the filter stays attached when the metrics are
+ * disabled and then only checks whether they are enabled.
+ */
+final class AppenderTimingFilter extends Filter<ILoggingEvent> {
+
+    private static final ThreadLocal<Measurement> MEASUREMENT = ThreadLocal.withInitial(Measurement::new);
+
+    private volatile LogMetrics.AppenderTimer timer;
+
+    private AppenderTimingFilter(LogMetrics.AppenderTimer timer) {
+        this.timer = timer;
+        setName("log-metrics-timer");
+        start();
+    }
+
+    /**
+     * Attaches a filter to the appender unless it has one, and takes over a filter whose metrics are disabled.
+     *
+     * @return false if the appender is timed by other metrics that are enabled
+     */
+    static boolean attach(Appender<ILoggingEvent> appender, LogMetrics.AppenderTimer timer) {
+        for (Filter<ILoggingEvent> filter : appender.getCopyOfAttachedFiltersList()) {
+            if (filter instanceof AppenderTimingFilter) {
+                AppenderTimingFilter timing = (AppenderTimingFilter) filter;
+                LogMetrics.AppenderTimer current = timing.timer;
+                if (current.getMetrics() != timer.getMetrics() && current.getMetrics().isEnabled()) {
+                    return false;
+                }
+                timing.timer = timer;
+                return true;
+            }
+        }
+        appender.addFilter(new AppenderTimingFilter(timer));
+        return true;
+    }
+
+    /**
+     * Forgets a measurement that was not ended, ex. because an appender was attached behind the {@link End} appender.
+     */
+    static void discard() {
+        MEASUREMENT.get().timer = null;
+    }
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        LogMetrics.AppenderTimer current = timer;
+        if (current.getMetrics().isEnabled()) {
+            long now = System.nanoTime();
+            Measurement measurement = MEASUREMENT.get();
+            measurement.end(now);
+            measurement.timer = current;
+            measurement.loggerName = event.getLoggerName();
+            measurement.start = now;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Attached behind the appenders of a logger, ends the measurement of the last appender that saw the event.
+     */
+    static final class End extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+        private final LogMetrics metrics;
+
+        End(LogMetrics metrics) {
+            this.metrics = metrics;
+            setName("log-metrics-end");
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            long now = System.nanoTime();
+            MEASUREMENT.get().end(now);
+            metrics.instrumentIfDue(now);
+        }
+    }
+
+    private static final class Measurement {
+
+        private LogMetrics.AppenderTimer timer;
+
+        private String loggerName;
+
+        private long start;
+
+        private void end(long now) {
+            if (timer != null) {
+                long nanos = now - start;
+                timer.record(nanos);
+                timer.getMetrics().appended(loggerName, nanos);
+                timer = null;
+            }
+        }
+    }
+}
@@ -4,13 +4,23 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import com.path.variable.commons.logging.dto.LogResponseStatus;
+import com.path.variable.commons.logging.dto.LoggerBatchRequest;
 import com.path.variable.commons.logging.dto.LoggerChangeRequest;
+import com.path.variable.commons.logging.dto.MdcOverrideRequest;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.PatternSyntaxException;
 
 import static com.path.variable.commons.logging.dto.LogResponseStatus.*;
 
@@ -18,6 +28,16 @@ import static com.path.variable.commons.logging.dto.LogResponseStatus.*;
  * This component provides an interface to access and manage an applications Loggers at runtime.
  * Also allows the client to specify a duration after which the altered log level reverts to the
  * original level.
+ * Every logger has at most one pending revert. A timed request for a logger that already has one replaces its level
+ * and revert time but keeps the original level, so overlapping requests always end at the level the logger had
+ * before the first of them. A change without a duration is permanent and drops the pending revert.
+ * MDC overrides enable a level for a logger only for events logged in a given MDC context, ex. for the requests of
+ * one tenant, through a turbo filter that is part of the logger context while it has overrides. Sampled changes
+ * lower a level but only let through a sample of the newly enabled events, they end with the revert or the next
+ * change of the logger. The optional volume governor demotes loggers that log more events than a budget allows, the
+ * optional {@link LogMetrics} show which loggers log the most and which cost the most time in appenders.
+ * Reverts run on a single daemon thread of a {@link ScheduledThreadPoolExecutor}, a failing revert does not affect
+ * the others.
  * The reasoning behind the component is simply convenience. It might get phased out in future releases.
  */
 public class LogLevelService {
@@ -26,44 +46,428 @@ public class LogLevelService {
 
     private final LoggerContext loggerContext;
 
-    private final Timer timer;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final Map<String, PendingRevert> pendingReverts = new ConcurrentHashMap<>();
+
+    private final MdcOverrideFilter mdcOverrideFilter;
+
+    private final SamplingFilter samplingFilter;
+
+    private final LogMetrics metrics;
+
+    private LogVolumeGovernor volumeGovernor;
+
+    private ScheduledFuture<?> volumeCheck;
 
     public LogLevelService() {
         this.loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
-        this.timer = new Timer();
+        this.mdcOverrideFilter = new MdcOverrideFilter(loggerContext);
+        this.samplingFilter = new SamplingFilter(loggerContext);
+        this.metrics = new LogMetrics(loggerContext);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "log-level-revert");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // cancelled reverts would otherwise stay in the queue until they were due
+        scheduler.setRemoveOnCancelPolicy(true);
     }
 
+    /**
+     * Changes the level of a logger. With a sampling only a sample of the events the new level enables beyond the
+     * current effective level is let through, the dropped events are counted, see {@link #getSampledLevels()}.
+     * A change without sampling ends the sampling of the logger.
+     */
     public LogResponseStatus setLogLevel(LoggerChangeRequest request) {
+        if (invalidRequest(request)) {
+            return INVALID_REQUEST;
+        }
+        if (request.getSampling() != null) {
+            return executeSampled(request);
+        }
+        LogResponseStatus status = request.getDuration() == null ? executePermanently(request) : executeWithTimer(request);
+        if (status == CHANGED || status == TIMER_SUCCESSFUL) {
+            endSampling(request.getLoggerName());
+        }
+        return status;
+    }
+
+    /**
+     * Applies several changes, resolved in one pass over all loggers. Later changes of the batch win over earlier
+     * ones for loggers matched by both.
+     * The batch is applied all or nothing: if any change is invalid, names a missing logger or a pattern that matches
+     * none, nothing is changed and the loggers that would have changed are reported as
+     * {@link LogResponseStatus#SKIPPED}.
+     * With a duration all changed loggers are reverted together by one scheduled task.
+     *
+     * @return the status per logger name, and per requested name or pattern for changes that failed
+     * @throws IllegalArgumentException if a change names no logger, since its status could not be reported
+     */
+    public Map<String, LogResponseStatus> setLogLevels(LoggerBatchRequest batch) {
+        List<LoggerChangeRequest> requests = batch.getRequests();
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i).getLoggerName() == null) {
+                throw new IllegalArgumentException("Change " + i + " of the batch names no logger");
+            }
+        }
+        Map<String, LogResponseStatus> results = new LinkedHashMap<>();
+        List<LoggerSelector> selectors = new ArrayList<>();
+        for (LoggerChangeRequest request : requests) {
+            LogResponseStatus status = resolveSelector(request, selectors);
+            if (status != null) {
+                results.put(request.getLoggerName(), status);
+            }
+        }
+
+        Map<Logger, Level> changes = new LinkedHashMap<>();
+        for (Logger logger : loggerContext.getLoggerList()) {
+            for (LoggerSelector selector : selectors) {
+                if (selector.matches(logger.getName())) {
+                    changes.put(logger, selector.getLevel());
+                }
+            }
+        }
+        for (LoggerSelector selector : selectors) {
+            if (!selector.hasMatched()) {
+                results.put(selector.getExpression(), LOGGER_NOT_FOUND);
+            }
+        }
+        if (!results.isEmpty()) {
+            changes.keySet().forEach(logger -> results.putIfAbsent(logger.getName(), SKIPPED));
+            return results;
+        }
+
+        if (!applyBatch(changes, batch.getDuration())) {
+            changes.keySet().forEach(logger -> results.put(logger.getName(), ERROR));
+            return results;
+        }
+        LogResponseStatus status = batch.getDuration() != null ? TIMER_SUCCESSFUL : CHANGED;
+        changes.keySet().forEach(logger -> {
+            endSampling(logger.getName());
+            results.put(logger.getName(), status);
+        });
+        return results;
+    }
+
+    /**
+     * Enables a level for a logger and its children only for events logged while the MDC has the requested value,
+     * the level of the logger itself stays as it is. An override for the same logger and MDC value is replaced.
+     * With a duration the override is removed once it has passed.
+     */
+    public LogResponseStatus addMdcOverride(MdcOverrideRequest request) {
+        if (request.getLoggerName() == null || request.getLevel() == null || request.getMdcKey() == null
+                || request.getMdcValue() == null) {
+            return INVALID_REQUEST;
+        }
+        if (loggerContext.exists(request.getLoggerName()) == null) {
+            return LOGGER_NOT_FOUND;
+        }
+        Level level = resolveLevel(request.getLevel());
+        if (level == null) {
+            return LEVEL_NOT_FOUND;
+        }
         Duration duration = request.getDuration();
-        return invalidRequest(request) ? INVALID_REQUEST : duration == null ?
-                execute(request) : executeWithTimer(request);
+        MdcOverride override = new MdcOverride(request.getLoggerName(), level, request.getMdcKey(),
+                request.getMdcValue(), duration == null ? null : Instant.now().plus(duration));
+        try {
+            mdcOverrideFilter.add(override);
+        } catch (Exception ex) {
+            LOG.error("Exception while adding the MDC override {}", override, ex);
+            return ERROR;
+        }
+        if (duration != null) {
+            // scheduled after the override was added, a removal that is due right away must find it
+            try {
+                override.setExpiry(scheduler.schedule(() -> mdcOverrideFilter.remove(override), duration.toNanos(),
+                        TimeUnit.NANOSECONDS));
+            } catch (Exception ex) {
+                LOG.error("Exception while scheduling the removal of the MDC override {}", override, ex);
+                mdcOverrideFilter.remove(override);
+                return ERROR;
+            }
+        }
+        return duration == null ? CHANGED : TIMER_SUCCESSFUL;
+    }
+
+    /**
+     * @return false if there was no override for the logger and MDC value
+     */
+    public boolean removeMdcOverride(String loggerName, String mdcKey, String mdcValue) {
+        return mdcOverrideFilter.remove(loggerName, mdcKey, mdcValue);
+    }
+
+    public List<MdcOverride> getMdcOverrides() {
+        return mdcOverrideFilter.getOverrides();
+    }
+
+    /**
+     * @return the sampled level changes with the number of events they let through and dropped so far
+     */
+    public List<SampledLevel> getSampledLevels() {
+        return samplingFilter.getSampledLevels();
+    }
+
+    /**
+     * Starts tracking the event rate of every logger and demotes loggers that exceed the budget by one level until
+     * their rate has calmed down. Replaces a governor that was enabled before.
+     */
+    public synchronized LogResponseStatus enableVolumeGovernor(LogVolumeBudget budget, LogVolumeListener listener) {
+        disableVolumeGovernor();
+        LogVolumeGovernor governor = new LogVolumeGovernor(loggerContext, budget, listener);
+        long intervalNanos = budget.getCheckInterval().toNanos();
+        try {
+            volumeCheck = scheduler.scheduleAtFixedRate(() -> checkVolume(governor), intervalNanos, intervalNanos,
+                    TimeUnit.NANOSECONDS);
+        } catch (Exception ex) {
+            LOG.error("Exception while scheduling the log volume checks", ex);
+            return ERROR;
+        }
+        volumeGovernor = governor;
+        loggerContext.addTurboFilter(governor);
+        return CHANGED;
+    }
+
+    /**
+     * Stops tracking event rates and restores all demoted loggers.
+     */
+    public synchronized void disableVolumeGovernor() {
+        if (volumeGovernor == null) {
+            return;
+        }
+        volumeCheck.cancel(false);
+        loggerContext.getTurboFilterList().remove(volumeGovernor);
+        volumeGovernor.restoreAll();
+        volumeGovernor = null;
+    }
+
+    /**
+     * @return the loggers the volume governor has demoted right now
+     */
+    public synchronized List<LoggerDemotion> getDemotions() {
+        return volumeGovernor == null ? List.of() : volumeGovernor.getDemotions();
     }
 
     public Level getLogLevel(String loggerName) {
         return loggerContext.getLogger(loggerName).getEffectiveLevel();
     }
 
+    /**
+     * Event counts and appender times of the loggers. Disabled by default, enable them through
+     * {@link LogMetrics#setEnabled(boolean)} or over JMX after {@link LogMetrics#registerMBean}.
+     */
+    public LogMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the loggers that logged the most events since the metrics were enabled, most first
+     */
+    public List<LoggerMetrics> getTopLoggers(int limit) {
+        return metrics.topLoggersByEvents(limit);
+    }
+
+    /**
+     * Reverts a timed change right away instead of waiting for its duration to pass.
+     *
+     * @return false if the logger had no pending revert
+     */
+    public boolean cancel(String loggerName) {
+        PendingRevert pending = pendingReverts.get(loggerName);
+        return pending != null && revert(pending);
+    }
+
+    /**
+     * @return the timed changes that have not been reverted yet, ordered by revert time
+     */
+    public List<TimedOverride> getPendingReverts() {
+        List<TimedOverride> overrides = new ArrayList<>();
+        for (PendingRevert pending : pendingReverts.values()) {
+            overrides.add(pending.override);
+        }
+        overrides.sort(Comparator.comparing(TimedOverride::getRevertAt));
+        return overrides;
+    }
+
+    /**
+     * Reverts all timed changes, removes all MDC overrides, disables the volume governor and the metrics and stops the
+     * scheduler. Timed requests made afterwards fail with an error.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        disableVolumeGovernor();
+        metrics.setEnabled(false);
+        mdcOverrideFilter.clear();
+        for (PendingRevert pending : pendingReverts.values()) {
+            revert(pending);
+        }
+        samplingFilter.clear().forEach(this::logSamplingEnd);
+    }
+
     private boolean invalidRequest(LoggerChangeRequest request) {
         return request.getLoggerName() == null || request.getLevel() == null;
     }
 
-    private LogResponseStatus execute(LoggerChangeRequest request) {
+    /**
+     * @return the status of an invalid change or null if the selector was added
+     */
+    private LogResponseStatus resolveSelector(LoggerChangeRequest request, List<LoggerSelector> selectors) {
+        if (invalidRequest(request)) {
+            return INVALID_REQUEST;
+        }
+        Level level = resolveLevel(request.getLevel());
+        if (level == null) {
+            return LEVEL_NOT_FOUND;
+        }
+        try {
+            selectors.add(LoggerSelector.of(request.getLoggerName(), level));
+            return null;
+        } catch (PatternSyntaxException ex) {
+            return INVALID_REQUEST;
+        }
+    }
+
+    /**
+     * Changes the levels of a batch, each under the lock of its pending revert entry. With a duration one revert task
+     * is registered for all loggers, a logger that already had a pending revert keeps its original baseline.
+     * The reverts replaced by the batch are only discarded once it was applied completely, a failure restores them
+     * together with the previous levels.
+     *
+     * @return false if the batch failed and was rolled back
+     */
+    private boolean applyBatch(Map<Logger, Level> changes, Duration duration) {
+        Instant revertAt = duration == null ? null : Instant.now().plus(duration);
+        Map<Logger, Level> previousLevels = new LinkedHashMap<>();
+        Map<String, PendingRevert> replaced = new LinkedHashMap<>();
+        List<PendingRevert> installed = new ArrayList<>(changes.size());
+        try {
+            changes.forEach((logger, level) -> pendingReverts.compute(logger.getName(), (name, previous) -> {
+                Level previousLevel = logger.getLevel();
+                logger.setLevel(level);
+                previousLevels.put(logger, previousLevel);
+                replaced.put(name, previous);
+                if (duration == null) {
+                    return null;
+                }
+                Level baseline = previous != null ? previous.override.getBaseline() : previousLevel;
+                PendingRevert pending = new PendingRevert(logger, new TimedOverride(name, level, baseline, revertAt),
+                        true);
+                installed.add(pending);
+                return pending;
+            }));
+            if (duration != null) {
+                ScheduledFuture<?> future = scheduler.schedule(() -> installed.forEach(this::revert),
+                        duration.toNanos(), TimeUnit.NANOSECONDS);
+                installed.forEach(pending -> pending.future = future);
+            }
+        } catch (Exception ex) {
+            LOG.error("Exception while changing the log levels of {} loggers, rolling back", changes.size(), ex);
+            previousLevels.forEach((logger, previousLevel) -> pendingReverts.compute(logger.getName(), (name, current) -> {
+                logger.setLevel(previousLevel);
+                return replaced.get(name);
+            }));
+            return false;
+        }
+        replaced.values().forEach(previous -> {
+            if (previous != null) {
+                previous.discard();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Installs the sampling before the level changes, so that no burst of events gets through unsampled. A logger
+     * that is sampled already keeps its threshold, so overlapping requests keep sampling from the original level on.
+     */
+    private LogResponseStatus executeSampled(LoggerChangeRequest request) {
+        Logger logger = loggerContext.exists(request.getLoggerName());
+        if (logger == null) {
+            return LOGGER_NOT_FOUND;
+        }
+        Level level = resolveLevel(request.getLevel());
+        if (level == null) {
+            return LEVEL_NOT_FOUND;
+        }
+        SampledLevel previous = samplingFilter.get(logger.getName());
+        Level threshold = previous != null ? previous.getThreshold() : logger.getEffectiveLevel();
+        SampledLevel sampled = new SampledLevel(logger.getName(), level, threshold, request.getSampling(),
+                explicitChildren(logger));
+        samplingFilter.add(sampled);
+        LogResponseStatus status = request.getDuration() == null ? executePermanently(request) : executeWithTimer(request);
+        if (status != CHANGED && status != TIMER_SUCCESSFUL) {
+            if (previous != null) {
+                samplingFilter.add(previous);
+            } else {
+                samplingFilter.remove(logger.getName());
+            }
+        }
+        return status;
+    }
+
+    /**
+     * @return the names of the descendants of the logger with a level of their own, the topmost ones only
+     */
+    private List<String> explicitChildren(Logger logger) {
+        String prefix = logger.getName() + ".";
+        List<String> children = new ArrayList<>();
+        for (Logger candidate : loggerContext.getLoggerList()) {
+            if (candidate.getLevel() != null && candidate.getName().startsWith(prefix)
+                    && children.stream().noneMatch(child -> candidate.getName().startsWith(child + "."))) {
+                children.add(candidate.getName());
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Runs on the scheduler thread, a failing check must not cancel the following ones.
+     */
+    private void checkVolume(LogVolumeGovernor governor) {
+        try {
+            governor.check();
+        } catch (Exception ex) {
+            LOG.error("Exception while checking the log volume", ex);
+        }
+    }
+
+    private void endSampling(String loggerName) {
+        SampledLevel sampled = samplingFilter.remove(loggerName);
+        if (sampled != null) {
+            logSamplingEnd(sampled);
+        }
+    }
+
+    private void logSamplingEnd(SampledLevel sampled) {
+        LOG.info("Ended sampling {} of logger {}, {} events accepted, {} dropped", sampled.getSampling(),
+                sampled.getLoggerName(), sampled.getAccepted(), sampled.getDropped());
+    }
+
+    /**
+     * Changes the level and drops the pending revert under the lock of the revert entry, so that a revert that is
+     * due at the same time either runs before the change or not at all.
+     */
+    private LogResponseStatus executePermanently(LoggerChangeRequest request) {
         String name = request.getLoggerName();
-        String level = request.getLevel();
         try {
             Logger logger = loggerContext.exists(name);
-            Level resolvedLevel = Level.toLevel(level);
+            Level resolvedLevel = resolveLevel(request.getLevel());
 
             if (logger == null ) {
                 return LOGGER_NOT_FOUND;
             }
 
-            // Level returns DEBUG if no Levels mathced. We want to error out in this case.
-            if (resolvedLevel.equals(Level.DEBUG) && !level.equals(Level.DEBUG.toString())) {
+            if (resolvedLevel == null) {
                 return LEVEL_NOT_FOUND;
             }
 
-            logger.setLevel(resolvedLevel);
+            pendingReverts.compute(name, (key, previous) -> {
+                logger.setLevel(resolvedLevel);
+                if (previous != null) {
+                    previous.discard();
+                }
+                return null;
+            });
             return CHANGED;
         } catch (Exception ex) {
             LOG.error("Exception while changing log level {} for logger {}", request.getLevel(), request.getLoggerName(), ex);
@@ -72,25 +476,107 @@ public class LogLevelService {
     }
 
     private LogResponseStatus executeWithTimer(LoggerChangeRequest request) {
-        Level currentLevel = Optional.ofNullable(loggerContext.getLogger(request.getLoggerName()))
-                                     .map(Logger::getLevel)
-                                     .orElse(null);
-        LogResponseStatus status = execute(request);
-        return status == ERROR ? ERROR : revertOnTimer(request, currentLevel);
+        String name = request.getLoggerName();
+        Logger logger = loggerContext.exists(name);
+        if (logger == null) {
+            return LOGGER_NOT_FOUND;
+        }
+        Level level = resolveLevel(request.getLevel());
+        if (level == null) {
+            return LEVEL_NOT_FOUND;
+        }
+        LogResponseStatus[] status = {TIMER_SUCCESSFUL};
+        try {
+            pendingReverts.compute(name, (key, previous) -> {
+                Level baseline = previous != null ? previous.override.getBaseline() : logger.getLevel();
+                Instant revertAt = Instant.now().plus(request.getDuration());
+                PendingRevert pending = new PendingRevert(logger, new TimedOverride(name, level, baseline, revertAt),
+                        false);
+                // scheduled before anything changes, so that a stopped scheduler leaves the previous state intact
+                pending.future = scheduler.schedule(() -> revert(pending), request.getDuration().toNanos(),
+                        TimeUnit.NANOSECONDS);
+                try {
+                    logger.setLevel(level);
+                } catch (RuntimeException ex) {
+                    pending.future.cancel(false);
+                    throw ex;
+                }
+                if (previous != null) {
+                    previous.discard();
+                }
+                return pending;
+            });
+        } catch (Exception ex) {
+            LOG.error("Exception while scheduling the revert of logger {}", name, ex);
+            status[0] = ERROR;
+        }
+        return status[0];
     }
 
-    private LogResponseStatus revertOnTimer(LoggerChangeRequest request, Level currentLevel) {
+    /**
+     * Restores the baseline level unless the revert was replaced in the meantime. The level is restored under the
+     * lock of the revert entry, so a request for the same logger sees either the overridden level with its pending
+     * revert or the restored level without one.
+     */
+    private boolean revert(PendingRevert pending) {
+        String name = pending.override.getLoggerName();
+        boolean[] reverted = {false};
         try {
-            LoggerChangeRequest revert = new LoggerChangeRequest(request.getLoggerName(), currentLevel.toString(), null);
-            timer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    execute(revert);
+            pendingReverts.computeIfPresent(name, (key, current) -> {
+                if (current != pending) {
+                    return current;
                 }
-            }, request.getDuration().toMillis());
+                reverted[0] = true;
+                pending.discard();
+                pending.logger.setLevel(pending.override.getBaseline());
+                return null;
+            });
         } catch (Exception ex) {
-            return ERROR;
+            pendingReverts.remove(name, pending);
+            LOG.error("Exception while reverting the log level of logger {}", name, ex);
+        }
+        if (reverted[0]) {
+            endSampling(name);
+        }
+        return reverted[0];
+    }
+
+    /**
+     * @return the level or null if the name is not a level
+     */
+    private static Level resolveLevel(String level) {
+        Level resolvedLevel = Level.toLevel(level);
+        // Level returns DEBUG if no Levels mathced. We want to error out in this case.
+        if (resolvedLevel.equals(Level.DEBUG) && !level.equals(Level.DEBUG.toString())) {
+            return null;
+        }
+        return resolvedLevel;
+    }
+
+    private static class PendingRevert {
+
+        private final Logger logger;
+
+        private final TimedOverride override;
+
+        private final boolean sharedFuture;
+
+        private volatile ScheduledFuture<?> future;
+
+        private PendingRevert(Logger logger, TimedOverride override, boolean sharedFuture) {
+            this.logger = logger;
+            this.override = override;
+            this.sharedFuture = sharedFuture;
+        }
+
+        /**
+         * Cancels the scheduled revert unless it also reverts other loggers of a batch, which then skips this one.
+         */
+        private void discard() {
+            ScheduledFuture<?> scheduled = future;
+            if (!sharedFuture && scheduled != null) {
+                scheduled.cancel(false);
+            }
         }
-        return TIMER_SUCCESSFUL;
     }
 }
@@ -0,0 +1,409 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Optional metrics of the loggers of a logger context: how many events every logger logs per level, how long its
+ * events spend in appenders and how long every appender takes per event.
+ * Disabled by default. While enabled a turbo filter counts every event that passes the level check, and appenders
+ * are timed by an {@link AppenderTimingFilter} with one clock read per appender call and one per logger, the
+ * appenders themselves stay attached as they are. Both increment striped {@link LongAdder}s. Appenders attached while
+ * the metrics are enabled are looked for at most once a second by a logging thread and timed from then on.
+ * Disabling removes the turbo filter, the timing filters stay attached but do nothing, so the overhead can be
+ * switched off at runtime.
+ * To keep memory bounded at most {@link #MAX_TRACKED_LOGGERS} loggers are tracked, the events of further loggers are
+ * only counted in total.
+ */
+public class LogMetrics implements LogMetricsMXBean {
+
+    private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(LogMetrics.class);
+
+    public static final int MAX_TRACKED_LOGGERS = 10_000;
+
+    private static final String OBJECT_NAME = "com.path.variable.commons:type=LogMetrics,name=%s";
+
+    private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+    private static final int BUCKETS = 48;
+
+    private static final long INSTRUMENT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LoggerContext loggerContext;
+
+    private final CountingFilter countingFilter = new CountingFilter();
+
+    private final Map<String, LoggerCounters> loggers = new ConcurrentHashMap<>();
+
+    private final Map<String, AppenderTimer> appenders = new ConcurrentHashMap<>();
+
+    private final LongAdder untracked = new LongAdder();
+
+    private final AppenderTimingFilter.End timingEnd;
+
+    private final AtomicLong nextInstrumentation = new AtomicLong();
+
+    private volatile boolean enabled;
+
+    private ObjectName objectName;
+
+    LogMetrics(LoggerContext loggerContext) {
+        this.loggerContext = loggerContext;
+        countingFilter.setName("log-metrics");
+        countingFilter.setContext(loggerContext);
+        countingFilter.start();
+        timingEnd = new AppenderTimingFilter.End(this);
+        timingEnd.setContext(loggerContext);
+        timingEnd.start();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Installs or removes the counting filter and starts or stops timing the appenders, the counts are kept either
+     * way.
+     */
+    @Override
+    public synchronized void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            loggerContext.addTurboFilter(countingFilter);
+            instrumentAppenders();
+        } else {
+            loggerContext.getTurboFilterList().remove(countingFilter);
+            for (Logger logger : loggerContext.getLoggerList()) {
+                logger.detachAppender(timingEnd);
+            }
+        }
+    }
+
+    /**
+     * @return the loggers that logged the most events, most first
+     */
+    public List<LoggerMetrics> topLoggersByEvents(int limit) {
+        return top(limit, LoggerMetrics::getEvents);
+    }
+
+    /**
+     * @return the loggers whose events spent the most time in appenders, most first
+     */
+    public List<LoggerMetrics> topLoggersByAppenderTime(int limit) {
+        return top(limit, metrics -> metrics.getAppenderTime().toNanos());
+    }
+
+    /**
+     * @return the metrics of the logger, null if it is not tracked
+     */
+    public LoggerMetrics getLoggerMetrics(String loggerName) {
+        LoggerCounters counters = loggers.get(loggerName);
+        return counters == null ? null : counters.snapshot(loggerName);
+    }
+
+    public List<AppenderTimes> getAppenderTimes() {
+        List<AppenderTimes> times = new ArrayList<>();
+        appenders.forEach((name, timer) -> times.add(timer.snapshot(name)));
+        return times;
+    }
+
+    @Override
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        loggers.forEach((name, counters) -> result.put(name, counters.snapshot(name).getEvents()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLevelCounts() {
+        long[] totals = new long[LEVELS.length];
+        for (LoggerCounters counters : loggers.values()) {
+            for (int i = 0; i < LEVELS.length; i++) {
+                totals[i] += counters.events[i].sum();
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < LEVELS.length; i++) {
+            result.put(LEVELS[i].toString(), totals[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getAppenderTimeMillis() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        loggers.forEach((name, counters) -> result.put(name, counters.appenderNanos.sum() / 1_000_000));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getAppenderP99Micros() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        appenders.forEach((name, timer) -> result.put(name, timer.snapshot(name).getPercentile(99).toNanos() / 1000));
+        return result;
+    }
+
+    @Override
+    public long getUntrackedEvents() {
+        return untracked.sum();
+    }
+
+    @Override
+    public List<String> busiestLoggers(int limit) {
+        return topLoggersByEvents(limit).stream().map(LoggerMetrics::getLoggerName).collect(toList());
+    }
+
+    @Override
+    public List<String> costliestLoggers(int limit) {
+        return topLoggersByAppenderTime(limit).stream().map(LoggerMetrics::getLoggerName).collect(toList());
+    }
+
+    @Override
+    public void reset() {
+        loggers.clear();
+        appenders.values().forEach(AppenderTimer::reset);
+        untracked.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * "com.path.variable.commons:type=LogMetrics,name={name}", replacing a previous registration.
+     */
+    public synchronized void registerMBean(String name) {
+        unregisterMBean();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName candidate = new ObjectName(String.format(OBJECT_NAME, ObjectName.quote(name)));
+            if (server.isRegistered(candidate)) {
+                server.unregisterMBean(candidate);
+            }
+            server.registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (JMException e) {
+            LOG.error("Could not register log metrics MBean {}", name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOG.debug("Could not unregister log metrics MBean {}", objectName, e);
+        }
+        objectName = null;
+    }
+
+    void appended(String loggerName, long nanos) {
+        LoggerCounters counters = counters(loggerName);
+        if (counters != null) {
+            counters.appenderCalls.increment();
+            counters.appenderNanos.add(nanos);
+        }
+    }
+
+    /**
+     * Times the appenders that were attached since the last time, at most every {@link #INSTRUMENT_INTERVAL_NANOS}.
+     */
+    void instrumentIfDue(long now) {
+        long due = nextInstrumentation.get();
+        if (now - due >= 0 && nextInstrumentation.compareAndSet(due, now + INSTRUMENT_INTERVAL_NANOS)) {
+            synchronized (this) {
+                if (enabled) {
+                    instrumentAppenders();
+                }
+            }
+        }
+    }
+
+    static int levelIndex(Level level) {
+        switch (level.levelInt) {
+            case Level.TRACE_INT:
+                return 0;
+            case Level.DEBUG_INT:
+                return 1;
+            case Level.INFO_INT:
+                return 2;
+            case Level.WARN_INT:
+                return 3;
+            case Level.ERROR_INT:
+                return 4;
+            default:
+                return -1;
+        }
+    }
+
+    private LoggerCounters counters(String loggerName) {
+        LoggerCounters counters = loggers.get(loggerName);
+        if (counters == null) {
+            if (loggers.size() >= MAX_TRACKED_LOGGERS) {
+                return null;
+            }
+            counters = loggers.computeIfAbsent(loggerName, name -> new LoggerCounters());
+        }
+        return counters;
+    }
+
+    private List<LoggerMetrics> top(int limit, ToLongFunction<LoggerMetrics> metric) {
+        List<LoggerMetrics> snapshots = new ArrayList<>();
+        loggers.forEach((name, counters) -> snapshots.add(counters.snapshot(name)));
+        return snapshots.stream()
+                        .sorted(Comparator.comparingLong(metric).reversed())
+                        .limit(limit)
+                        .collect(toList());
+    }
+
+    /**
+     * Attaches a timing filter to every appender and the end of the measurement behind the appenders of every logger
+     * with a timed appender. Appenders that are timed by the enabled metrics of another service are left as they are.
+     * Nothing is detached from a logger except the end, so no event can be lost or appended twice.
+     */
+    private void instrumentAppenders() {
+        nextInstrumentation.set(System.nanoTime() + INSTRUMENT_INTERVAL_NANOS);
+        for (Logger logger : loggerContext.getLoggerList()) {
+            boolean timed = false;
+            Appender<ILoggingEvent> last = null;
+            for (Appender<ILoggingEvent> appender : appenders(logger)) {
+                last = appender;
+                if (appender != timingEnd && AppenderTimingFilter.attach(appender, appenders.computeIfAbsent(
+                        String.valueOf(appender.getName()), name -> new AppenderTimer(this)))) {
+                    timed = true;
+                }
+            }
+            if (timed && last != timingEnd) {
+                // an appender was attached behind the end, which has to be last to end its measurement
+                logger.detachAppender(timingEnd);
+                logger.addAppender(timingEnd);
+            }
+        }
+    }
+
+    private static List<Appender<ILoggingEvent>> appenders(Logger logger) {
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        for (Iterator<Appender<ILoggingEvent>> iterator = logger.iteratorForAppenders(); iterator.hasNext(); ) {
+            appenders.add(iterator.next());
+        }
+        return appenders;
+    }
+
+    private final class CountingFilter extends TurboFilter {
+
+        @Override
+        public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                                  Throwable t) {
+            if (format == null || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+                return FilterReply.NEUTRAL;
+            }
+            AppenderTimingFilter.discard();
+            int index = levelIndex(level);
+            LoggerCounters counters = counters(logger.getName());
+            if (counters == null || index < 0) {
+                untracked.increment();
+            } else {
+                counters.events[index].increment();
+            }
+            return FilterReply.NEUTRAL;
+        }
+    }
+
+    private static final class LoggerCounters {
+
+        private final LongAdder[] events = new LongAdder[LEVELS.length];
+
+        private final LongAdder appenderCalls = new LongAdder();
+
+        private final LongAdder appenderNanos = new LongAdder();
+
+        private LoggerCounters() {
+            for (int i = 0; i < events.length; i++) {
+                events[i] = new LongAdder();
+            }
+        }
+
+        private LoggerMetrics snapshot(String name) {
+            long[] counts = new long[events.length];
+            for (int i = 0; i < events.length; i++) {
+                counts[i] = events[i].sum();
+            }
+            return new LoggerMetrics(name, counts, appenderCalls.sum(), appenderNanos.sum());
+        }
+    }
+
+    /**
+     * A histogram of appender call durations with power of two buckets, bucket n counts durations from 2^(n-1) to
+     * 2^n - 1 ns.
+     */
+    static final class AppenderTimer {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final LogMetrics metrics;
+
+        private AppenderTimer(LogMetrics metrics) {
+            this.metrics = metrics;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        LogMetrics getMetrics() {
+            return metrics;
+        }
+
+        void record(long nanos) {
+            buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)))].increment();
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        private void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            maxNanos.set(0);
+        }
+
+        private AppenderTimes snapshot(String name) {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return new AppenderTimes(name, counts, maxNanos.get());
+        }
+    }
+}
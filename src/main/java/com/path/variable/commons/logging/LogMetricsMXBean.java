@@ -0,0 +1,30 @@
+package com.path.variable.commons.logging;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link LogMetrics}.
+ */
+public interface LogMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getEventCounts();
+
+    Map<String, Long> getLevelCounts();
+
+    Map<String, Long> getAppenderTimeMillis();
+
+    Map<String, Long> getAppenderP99Micros();
+
+    long getUntrackedEvents();
+
+    List<String> busiestLoggers(int limit);
+
+    List<String> costliestLoggers(int limit);
+
+    void reset();
+}
@@ -0,0 +1,81 @@
+package com.path.variable.commons.logging;
+
+import java.time.Duration;
+
+/**
+ * The event rate a logger may sustain before the volume governor of {@link LogLevelService} demotes it.
+ * Rates are measured per logger over one check interval. A demoted logger is restored once its rate, including the
+ * events its demotion suppresses, has fallen to the restore rate, which is lower than the budget so that a logger
+ * does not flap between the two levels.
+ */
+public class LogVolumeBudget {
+
+    private final long eventsPerSecond;
+
+    private final long restoreEventsPerSecond;
+
+    private final Duration checkInterval;
+
+    private LogVolumeBudget(Builder builder) {
+        this.eventsPerSecond = builder.eventsPerSecond;
+        this.restoreEventsPerSecond = builder.restoreEventsPerSecond < 0 ? builder.eventsPerSecond / 2
+                : builder.restoreEventsPerSecond;
+        this.checkInterval = builder.checkInterval;
+    }
+
+    /**
+     * @param eventsPerSecond the highest rate of events a logger may log without being demoted
+     */
+    public static Builder builder(long eventsPerSecond) {
+        return new Builder(eventsPerSecond);
+    }
+
+    public long getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public long getRestoreEventsPerSecond() {
+        return restoreEventsPerSecond;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public static class Builder {
+
+        private final long eventsPerSecond;
+
+        private long restoreEventsPerSecond = -1;
+
+        private Duration checkInterval = Duration.ofSeconds(1);
+
+        private Builder(long eventsPerSecond) {
+            this.eventsPerSecond = eventsPerSecond;
+        }
+
+        /**
+         * The rate at or below which a demoted logger is restored, half the budget by default.
+         */
+        public Builder restoreEventsPerSecond(long restoreEventsPerSecond) {
+            this.restoreEventsPerSecond = restoreEventsPerSecond;
+            return this;
+        }
+
+        /**
+         * How often the rates are checked, which is also how long a runaway logger logs before it is demoted.
+         */
+        public Builder checkInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+            return this;
+        }
+
+        public LogVolumeBudget build() {
+            if (eventsPerSecond < 1 || restoreEventsPerSecond > eventsPerSecond || checkInterval.isNegative()
+                    || checkInterval.isZero()) {
+                throw new IllegalArgumentException("Invalid log volume budget");
+            }
+            return new LogVolumeBudget(this);
+        }
+    }
+}
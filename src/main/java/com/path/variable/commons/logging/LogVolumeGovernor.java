@@ -0,0 +1,181 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the enabled events of every logger and demotes loggers whose rate exceeds a {@link LogVolumeBudget} by one
+ * level, ex. INFO to WARN, until their rate has calmed down. ERROR is never demoted.
+ * Counting is a lookup of the logger in a concurrent map and a striped {@link LongAdder} increment, it never denies
+ * an event. Level checks like {@code isInfoEnabled()} pass without a format and are not counted. While a logger is
+ * demoted the events its demotion suppresses are still counted, as they are what decides whether it calmed down.
+ * The rates are checked by {@link #check()}, which is meant to be called at the check interval by a single thread.
+ * Checks and restoring all loggers are synchronized, so that no demotion outlives the governor.
+ */
+final class LogVolumeGovernor extends TurboFilter {
+
+    private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(LogVolumeGovernor.class);
+
+    private static final int FOLLOW_EFFECTIVE_LEVEL = -1;
+
+    private final LogVolumeBudget budget;
+
+    private final LogVolumeListener listener;
+
+    private final Map<Logger, EventCounter> counters = new ConcurrentHashMap<>();
+
+    private long lastCheckNanos = System.nanoTime();
+
+    LogVolumeGovernor(LoggerContext loggerContext, LogVolumeBudget budget, LogVolumeListener listener) {
+        this.budget = budget;
+        this.listener = listener;
+        setName("log-volume-governor");
+        setContext(loggerContext);
+        start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        EventCounter counter = counters.get(logger);
+        if (counter == null) {
+            if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+                return FilterReply.NEUTRAL;
+            }
+            counter = counters.computeIfAbsent(logger, key -> new EventCounter());
+        }
+        int countFrom = counter.countFrom;
+        if (level.levelInt >= (countFrom == FOLLOW_EFFECTIVE_LEVEL ? logger.getEffectiveLevel().levelInt : countFrom)) {
+            counter.events.increment();
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Demotes the loggers that exceeded the budget since the last check and restores the demoted ones that calmed
+     * down. Loggers that logged nothing are forgotten.
+     */
+    synchronized void check() {
+        long now = System.nanoTime();
+        long elapsedNanos = Math.max(1, now - lastCheckNanos);
+        lastCheckNanos = now;
+        Iterator<Map.Entry<Logger, EventCounter>> entries = counters.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Logger, EventCounter> entry = entries.next();
+            EventCounter counter = entry.getValue();
+            long events = counter.events.sumThenReset();
+            long eventsPerSecond = (long) (events * 1e9 / elapsedNanos);
+            if (counter.demotion == null) {
+                if (eventsPerSecond > budget.getEventsPerSecond()) {
+                    demote(entry.getKey(), counter, eventsPerSecond);
+                } else if (events == 0) {
+                    entries.remove();
+                }
+            } else if (eventsPerSecond <= budget.getRestoreEventsPerSecond()) {
+                restore(entry.getKey(), counter);
+            }
+        }
+    }
+
+    /**
+     * Restores all demoted loggers.
+     */
+    synchronized void restoreAll() {
+        counters.forEach((logger, counter) -> {
+            if (counter.demotion != null) {
+                restore(logger, counter);
+            }
+        });
+        counters.clear();
+    }
+
+    List<LoggerDemotion> getDemotions() {
+        List<LoggerDemotion> demotions = new ArrayList<>();
+        for (EventCounter counter : counters.values()) {
+            LoggerDemotion demotion = counter.demotion;
+            if (demotion != null) {
+                demotions.add(demotion);
+            }
+        }
+        return demotions;
+    }
+
+    private void demote(Logger logger, EventCounter counter, long eventsPerSecond) {
+        Level effectiveLevel = logger.getEffectiveLevel();
+        Level demotedLevel = nextLevel(effectiveLevel);
+        if (demotedLevel == null) {
+            return;
+        }
+        LoggerDemotion demotion = new LoggerDemotion(logger.getName(), logger.getLevel(), effectiveLevel,
+                demotedLevel, eventsPerSecond, Instant.now());
+        counter.countFrom = effectiveLevel.levelInt;
+        counter.demotion = demotion;
+        logger.setLevel(demotedLevel);
+        LOG.warn("Demoted logger {} from {} to {}, it logged {} events/s", logger.getName(), effectiveLevel,
+                demotedLevel, eventsPerSecond);
+        try {
+            listener.demoted(demotion);
+        } catch (Exception ex) {
+            LOG.error("Exception while reporting the demotion of logger {}", logger.getName(), ex);
+        }
+    }
+
+    private void restore(Logger logger, EventCounter counter) {
+        LoggerDemotion demotion = counter.demotion;
+        counter.demotion = null;
+        counter.countFrom = FOLLOW_EFFECTIVE_LEVEL;
+        // a level changed in the meantime is kept
+        if (logger.getLevel() == demotion.getDemotedLevel()) {
+            logger.setLevel(demotion.getOriginalLevel());
+        }
+        LOG.info("Restored logger {} to {}", logger.getName(), demotion.getEffectiveLevel());
+        try {
+            listener.restored(demotion);
+        } catch (Exception ex) {
+            LOG.error("Exception while reporting the restore of logger {}", logger.getName(), ex);
+        }
+    }
+
+    private static Level nextLevel(Level level) {
+        switch (level.levelInt) {
+            case Level.ALL_INT:
+            case Level.TRACE_INT:
+                return Level.DEBUG;
+            case Level.DEBUG_INT:
+                return Level.INFO;
+            case Level.INFO_INT:
+                return Level.WARN;
+            case Level.WARN_INT:
+                return Level.ERROR;
+            default:
+                return null;
+        }
+    }
+
+    private static final class EventCounter {
+
+        private final LongAdder events = new LongAdder();
+
+        /**
+         * The lowest level that is counted, the level before the demotion while the logger is demoted.
+         */
+        private volatile int countFrom = FOLLOW_EFFECTIVE_LEVEL;
+
+        private volatile LoggerDemotion demotion;
+    }
+}
@@ -0,0 +1,13 @@
+package com.path.variable.commons.logging;
+
+/**
+ * Is told about the demotions of the volume governor of {@link LogLevelService}. Called on the thread that checks
+ * the rates, so implementations should return quickly.
+ */
+public interface LogVolumeListener {
+
+    void demoted(LoggerDemotion demotion);
+
+    default void restored(LoggerDemotion demotion) {
+    }
+}
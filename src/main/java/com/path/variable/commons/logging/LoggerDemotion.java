@@ -0,0 +1,72 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+
+import java.time.Instant;
+
+/**
+ * A logger the volume governor demoted because it logged more events than its {@link LogVolumeBudget} allows.
+ */
+public class LoggerDemotion {
+
+    private final String loggerName;
+
+    private final Level originalLevel;
+
+    private final Level effectiveLevel;
+
+    private final Level demotedLevel;
+
+    private final long eventsPerSecond;
+
+    private final Instant demotedAt;
+
+    LoggerDemotion(String loggerName, Level originalLevel, Level effectiveLevel, Level demotedLevel,
+                   long eventsPerSecond, Instant demotedAt) {
+        this.loggerName = loggerName;
+        this.originalLevel = originalLevel;
+        this.effectiveLevel = effectiveLevel;
+        this.demotedLevel = demotedLevel;
+        this.eventsPerSecond = eventsPerSecond;
+        this.demotedAt = demotedAt;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    /**
+     * @return the level the logger is restored to, null if it inherited its level
+     */
+    public Level getOriginalLevel() {
+        return originalLevel;
+    }
+
+    /**
+     * @return the effective level before the demotion
+     */
+    public Level getEffectiveLevel() {
+        return effectiveLevel;
+    }
+
+    public Level getDemotedLevel() {
+        return demotedLevel;
+    }
+
+    /**
+     * @return the rate that exceeded the budget
+     */
+    public long getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public Instant getDemotedAt() {
+        return demotedAt;
+    }
+
+    @Override
+    public String toString() {
+        return loggerName + " demoted from " + effectiveLevel + " to " + demotedLevel + " at " + eventsPerSecond
+                + " events/s";
+    }
+}
@@ -0,0 +1,62 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the events a logger logged and the time its events spent in appenders.
+ */
+public class LoggerMetrics {
+
+    private final String loggerName;
+
+    private final long[] events;
+
+    private final long appenderCalls;
+
+    private final long appenderNanos;
+
+    LoggerMetrics(String loggerName, long[] events, long appenderCalls, long appenderNanos) {
+        this.loggerName = loggerName;
+        this.events = events;
+        this.appenderCalls = appenderCalls;
+        this.appenderNanos = appenderNanos;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    /**
+     * @return the number of events logged at the level, 0 for levels other than TRACE to ERROR
+     */
+    public long getEvents(Level level) {
+        int index = LogMetrics.levelIndex(level);
+        return index < 0 ? 0 : events[index];
+    }
+
+    public long getEvents() {
+        long total = 0;
+        for (long count : events) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return how often an event of the logger was passed to an appender, once per appender
+     */
+    public long getAppenderCalls() {
+        return appenderCalls;
+    }
+
+    public Duration getAppenderTime() {
+        return Duration.ofNanos(appenderNanos);
+    }
+
+    @Override
+    public String toString() {
+        return loggerName + ": " + getEvents() + " events, " + getAppenderTime().toMillis() + " ms in appenders";
+    }
+}
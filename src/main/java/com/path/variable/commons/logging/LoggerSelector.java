@@ -0,0 +1,81 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+
+import java.util.regex.Pattern;
+
+/**
+ * Matches logger names against one entry of a batch change, an exact name, a glob or a regular expression.
+ */
+final class LoggerSelector {
+
+    static final String REGEX_PREFIX = "regex:";
+
+    private final String expression;
+
+    private final Level level;
+
+    private final String exactName;
+
+    private final Pattern pattern;
+
+    private boolean matched;
+
+    private LoggerSelector(String expression, Level level, String exactName, Pattern pattern) {
+        this.expression = expression;
+        this.level = level;
+        this.exactName = exactName;
+        this.pattern = pattern;
+    }
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException if the expression is an invalid regular expression
+     */
+    static LoggerSelector of(String expression, Level level) {
+        if (expression.startsWith(REGEX_PREFIX)) {
+            return new LoggerSelector(expression, level, null,
+                    Pattern.compile(expression.substring(REGEX_PREFIX.length())));
+        }
+        if (expression.indexOf('*') >= 0 || expression.indexOf('?') >= 0) {
+            return new LoggerSelector(expression, level, null, Pattern.compile(globToRegex(expression)));
+        }
+        return new LoggerSelector(expression, level, expression, null);
+    }
+
+    boolean matches(String loggerName) {
+        boolean matches = exactName != null ? exactName.equals(loggerName) : pattern.matcher(loggerName).matches();
+        matched |= matches;
+        return matches;
+    }
+
+    boolean hasMatched() {
+        return matched;
+    }
+
+    String getExpression() {
+        return expression;
+    }
+
+    Level getLevel() {
+        return level;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A level that is enabled for a logger and its children only for events logged while the MDC has a given value.
+ */
+public class MdcOverride {
+
+    private final String loggerName;
+
+    private final Level level;
+
+    private final String mdcKey;
+
+    private final String mdcValue;
+
+    private final Instant expiresAt;
+
+    private volatile ScheduledFuture<?> expiry;
+
+    MdcOverride(String loggerName, Level level, String mdcKey, String mdcValue, Instant expiresAt) {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.mdcKey = mdcKey;
+        this.mdcValue = mdcValue;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getMdcKey() {
+        return mdcKey;
+    }
+
+    public String getMdcValue() {
+        return mdcValue;
+    }
+
+    /**
+     * @return the time the override is removed, null if it stays until it is removed explicitly
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    void setExpiry(ScheduledFuture<?> expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * Cancels the removal that is scheduled for the override, once it was replaced or removed otherwise.
+     */
+    void cancelExpiry() {
+        ScheduledFuture<?> scheduled = expiry;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    boolean appliesTo(String name) {
+        return name.startsWith(loggerName)
+                && (name.length() == loggerName.length() || name.charAt(loggerName.length()) == '.');
+    }
+
+    boolean sameTarget(String name, String key, String value) {
+        return loggerName.equals(name) && mdcKey.equals(key) && mdcValue.equals(value);
+    }
+
+    @Override
+    public String toString() {
+        return loggerName + "=" + level + " where " + mdcKey + "=" + mdcValue
+                + (expiresAt == null ? "" : " until " + expiresAt);
+    }
+}
@@ -0,0 +1,126 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Accepts events that the level of their logger disables when an {@link MdcOverride} for the logger matches the MDC
+ * of the logging thread.
+ * The overrides are kept in an immutable array that is replaced on every change, so deciding takes no lock and
+ * allocates nothing. Events the logger enables anyway are left to the rest of the filter chain right away, the MDC
+ * is read once per key and the logger name is only compared for overrides whose MDC value matches.
+ * The filter is only part of the context while it holds overrides. Logback copies the filter list on every log call
+ * once it has more than one turbo filter, so an idle filter would not be free.
+ */
+final class MdcOverrideFilter extends TurboFilter {
+
+    private static final MdcOverride[] NONE = new MdcOverride[0];
+
+    private final LoggerContext loggerContext;
+
+    private volatile MdcOverride[] overrides = NONE;
+
+    MdcOverrideFilter(LoggerContext loggerContext) {
+        this.loggerContext = loggerContext;
+        setName("mdc-level-override");
+        setContext(loggerContext);
+        start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        MdcOverride[] current = overrides;
+        if (current.length == 0 || level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        String key = null;
+        String value = null;
+        for (MdcOverride override : current) {
+            if (!level.isGreaterOrEqual(override.getLevel())) {
+                continue;
+            }
+            // the overrides are sorted by key, so every key is read from the MDC once
+            if (!override.getMdcKey().equals(key)) {
+                key = override.getMdcKey();
+                value = MDC.get(key);
+            }
+            if (override.getMdcValue().equals(value) && override.appliesTo(name)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Adds the override and replaces one for the same logger and MDC value, whose scheduled removal is cancelled.
+     */
+    synchronized void add(MdcOverride override) {
+        List<MdcOverride> updated = new ArrayList<>(overrides.length + 1);
+        for (MdcOverride existing : overrides) {
+            if (!existing.sameTarget(override.getLoggerName(), override.getMdcKey(), override.getMdcValue())) {
+                updated.add(existing);
+            } else {
+                existing.cancelExpiry();
+            }
+        }
+        updated.add(override);
+        updated.sort(Comparator.comparing(MdcOverride::getMdcKey));
+        publish(updated.toArray(NONE));
+    }
+
+    /**
+     * @return false if the override was replaced or removed before
+     */
+    synchronized boolean remove(MdcOverride override) {
+        List<MdcOverride> updated = new ArrayList<>(Arrays.asList(overrides));
+        boolean removed = updated.removeIf(existing -> existing == override);
+        if (removed) {
+            publish(updated.toArray(NONE));
+        }
+        return removed;
+    }
+
+    synchronized boolean remove(String loggerName, String mdcKey, String mdcValue) {
+        List<MdcOverride> updated = new ArrayList<>(Arrays.asList(overrides));
+        boolean removed = updated.removeIf(existing -> {
+            if (!existing.sameTarget(loggerName, mdcKey, mdcValue)) {
+                return false;
+            }
+            existing.cancelExpiry();
+            return true;
+        });
+        if (removed) {
+            publish(updated.toArray(NONE));
+        }
+        return removed;
+    }
+
+    synchronized void clear() {
+        publish(NONE);
+    }
+
+    List<MdcOverride> getOverrides() {
+        return List.of(overrides);
+    }
+
+    private void publish(MdcOverride[] updated) {
+        boolean registered = overrides.length > 0;
+        overrides = updated;
+        if (!registered && updated.length > 0) {
+            loggerContext.addTurboFilter(this);
+        } else if (registered && updated.length == 0) {
+            loggerContext.getTurboFilterList().remove(this);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import com.path.variable.commons.logging.dto.LogSampling;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lowered log level of a logger and its children that only lets through a sample of the events it enabled, that
+ * is events below the threshold, the effective level before the change. Events at or above the threshold are not
+ * sampled. Children that had a level of their own when the level was changed, and their children, do not inherit
+ * the lowered level, so none of their events are sampled.
+ * One in n sampling counts the events, rate capped sampling is a token bucket kept as the theoretical arrival time of
+ * the next event (GCRA) that allows bursts of up to one second worth of events. Both are updated without locks.
+ */
+public class SampledLevel {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final String loggerName;
+
+    private final Level level;
+
+    private final Level threshold;
+
+    private final LogSampling sampling;
+
+    private final String[] explicitChildren;
+
+    private final long intervalNanos;
+
+    private final long toleranceNanos;
+
+    private final AtomicLong state;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    SampledLevel(String loggerName, Level level, Level threshold, LogSampling sampling, List<String> explicitChildren) {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.threshold = threshold;
+        this.sampling = sampling;
+        this.explicitChildren = explicitChildren.toArray(new String[0]);
+        this.intervalNanos = sampling.getPerSecond() > 0 ? SECOND_NANOS / sampling.getPerSecond() : 0;
+        this.toleranceNanos = intervalNanos * (sampling.getPerSecond() - 1);
+        this.state = new AtomicLong(sampling.getPerSecond() > 0 ? System.nanoTime() : 0);
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the level from which on events are not sampled
+     */
+    public Level getThreshold() {
+        return threshold;
+    }
+
+    public LogSampling getSampling() {
+        return sampling;
+    }
+
+    /**
+     * @return the number of sampled events that were let through
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * @return the number of sampled events that were dropped
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    boolean appliesTo(String name) {
+        return isWithin(loggerName, name);
+    }
+
+    /**
+     * @return true if the events of the logger are sampled, that is it inherits the lowered level
+     */
+    boolean samples(String name) {
+        if (!isWithin(loggerName, name)) {
+            return false;
+        }
+        for (String child : explicitChildren) {
+            if (isWithin(child, name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isSampled(Level eventLevel) {
+        return eventLevel.levelInt < threshold.levelInt;
+    }
+
+    /**
+     * @return true if the event is part of the sample
+     */
+    boolean tryAcquire() {
+        boolean acquired = intervalNanos == 0 ? state.getAndIncrement() % sampling.getOneIn() == 0
+                : tryAcquireToken(System.nanoTime());
+        (acquired ? accepted : dropped).increment();
+        return acquired;
+    }
+
+    private boolean tryAcquireToken(long now) {
+        while (true) {
+            long arrival = state.get();
+            if (arrival - toleranceNanos - now > 0) {
+                return false;
+            }
+            if (state.compareAndSet(arrival, Math.max(arrival, now) + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isWithin(String ancestor, String name) {
+        return name.startsWith(ancestor)
+                && (name.length() == ancestor.length() || name.charAt(ancestor.length()) == '.');
+    }
+
+    @Override
+    public String toString() {
+        return loggerName + "=" + level + " sampled " + sampling + " below " + threshold + ", accepted "
+                + getAccepted() + ", dropped " + getDropped();
+    }
+}
@@ -0,0 +1,112 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Denies the events of a {@link SampledLevel} that are not part of its sample.
+ * Level checks like {@code isDebugEnabled()} pass without a format and are not sampled, otherwise a guarded log call
+ * would take two samples. Like {@link MdcOverrideFilter} the sampled levels are kept in an immutable array and the
+ * filter is only part of the context while it has any.
+ */
+final class SamplingFilter extends TurboFilter {
+
+    private static final SampledLevel[] NONE = new SampledLevel[0];
+
+    private final LoggerContext loggerContext;
+
+    private volatile SampledLevel[] sampledLevels = NONE;
+
+    SamplingFilter(LoggerContext loggerContext) {
+        this.loggerContext = loggerContext;
+        setName("log-level-sampling");
+        setContext(loggerContext);
+        start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        SampledLevel[] current = sampledLevels;
+        if (current.length == 0 || format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        for (SampledLevel sampled : current) {
+            if (sampled.isSampled(level) && sampled.samples(name)) {
+                return sampled.tryAcquire() ? FilterReply.NEUTRAL : FilterReply.DENY;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Adds the sampled level and replaces the one of the same logger.
+     */
+    synchronized void add(SampledLevel sampledLevel) {
+        List<SampledLevel> updated = new ArrayList<>(sampledLevels.length + 1);
+        for (SampledLevel existing : sampledLevels) {
+            if (!existing.getLoggerName().equals(sampledLevel.getLoggerName())) {
+                updated.add(existing);
+            }
+        }
+        // children first, so that a sampled child wins over its sampled parent
+        int index = 0;
+        while (index < updated.size() && !updated.get(index).appliesTo(sampledLevel.getLoggerName())) {
+            index++;
+        }
+        updated.add(index, sampledLevel);
+        publish(updated.toArray(NONE));
+    }
+
+    SampledLevel get(String loggerName) {
+        for (SampledLevel sampled : sampledLevels) {
+            if (sampled.getLoggerName().equals(loggerName)) {
+                return sampled;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the removed sampled level or null if the logger had none
+     */
+    synchronized SampledLevel remove(String loggerName) {
+        SampledLevel removed = get(loggerName);
+        if (removed != null) {
+            List<SampledLevel> updated = new ArrayList<>(List.of(sampledLevels));
+            updated.remove(removed);
+            publish(updated.toArray(NONE));
+        }
+        return removed;
+    }
+
+    /**
+     * @return the removed sampled levels
+     */
+    synchronized List<SampledLevel> clear() {
+        List<SampledLevel> removed = List.of(sampledLevels);
+        publish(NONE);
+        return removed;
+    }
+
+    List<SampledLevel> getSampledLevels() {
+        return List.of(sampledLevels);
+    }
+
+    private void publish(SampledLevel[] updated) {
+        boolean registered = sampledLevels.length > 0;
+        sampledLevels = updated;
+        if (!registered && updated.length > 0) {
+            loggerContext.addTurboFilter(this);
+        } else if (registered && updated.length == 0) {
+            loggerContext.getTurboFilterList().remove(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+
+import java.time.Instant;
+
+/**
+ * A log level change that is reverted at a given time.
+ */
+public class TimedOverride {
+
+    private final String loggerName;
+
+    private final Level level;
+
+    private final Level baseline;
+
+    private final Instant revertAt;
+
+    TimedOverride(String loggerName, Level level, Level baseline, Instant revertAt) {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.baseline = baseline;
+        this.revertAt = revertAt;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the level the logger had before the first of the overlapping overrides, null if it inherited its level
+     */
+    public Level getBaseline() {
+        return baseline;
+    }
+
+    public Instant getRevertAt() {
+        return revertAt;
+    }
+
+    @Override
+    public String toString() {
+        return loggerName + "=" + level + " until " + revertAt + ", then " + baseline;
+    }
+}
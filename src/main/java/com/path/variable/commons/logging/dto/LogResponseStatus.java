@@ -7,6 +7,7 @@ public enum LogResponseStatus {
     TIMER_SUCCESSFUL,
     INVALID_REQUEST,
     LOGGER_NOT_FOUND,
-    LEVEL_NOT_FOUND
+    LEVEL_NOT_FOUND,
+    SKIPPED
 
 }
@@ -0,0 +1,56 @@
+package com.path.variable.commons.logging.dto;
+
+/**
+ * Limits the events a lowered log level lets through to a sample, either every n-th event or at most a number of
+ * events per second.
+ */
+public class LogSampling {
+
+    private final int oneIn;
+
+    private final int perSecond;
+
+    private LogSampling(int oneIn, int perSecond) {
+        this.oneIn = oneIn;
+        this.perSecond = perSecond;
+    }
+
+    /**
+     * Lets through the first of every n events.
+     */
+    public static LogSampling oneIn(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        return new LogSampling(n, 0);
+    }
+
+    /**
+     * Lets through at most the given number of events per second, including bursts of up to that many events.
+     */
+    public static LogSampling perSecond(int events) {
+        if (events < 1) {
+            throw new IllegalArgumentException("events must be positive");
+        }
+        return new LogSampling(0, events);
+    }
+
+    /**
+     * @return n of one in n sampling, 0 for rate capped sampling
+     */
+    public int getOneIn() {
+        return oneIn;
+    }
+
+    /**
+     * @return the events per second of rate capped sampling, 0 for one in n sampling
+     */
+    public int getPerSecond() {
+        return perSecond;
+    }
+
+    @Override
+    public String toString() {
+        return oneIn > 0 ? "1 in " + oneIn : perSecond + "/s";
+    }
+}
@@ -0,0 +1,30 @@
+package com.path.variable.commons.logging.dto;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Several log level changes that are applied together and optionally reverted together.
+ * The logger name of each change may be an exact name, a glob like "com.acme.payments.*" where '*' matches any
+ * characters including dots and '?' a single character, or a regular expression prefixed with "regex:".
+ * The durations of the single changes are ignored, the duration of the batch applies to all of them.
+ */
+public class LoggerBatchRequest {
+
+    private final List<LoggerChangeRequest> requests;
+
+    private final Duration duration;
+
+    public LoggerBatchRequest(List<LoggerChangeRequest> requests, Duration duration) {
+        this.requests = requests;
+        this.duration = duration;
+    }
+
+    public List<LoggerChangeRequest> getRequests() {
+        return requests;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+}
@@ -10,10 +10,20 @@ public class LoggerChangeRequest {
 
     private final Duration duration;
 
+    private final LogSampling sampling;
+
     public LoggerChangeRequest(String loggerName, String level, Duration duration) {
+        this(loggerName, level, duration, null);
+    }
+
+    /**
+     * @param sampling limits the events the new level enables beyond the previous one, null to let all through
+     */
+    public LoggerChangeRequest(String loggerName, String level, Duration duration, LogSampling sampling) {
         this.loggerName = loggerName;
         this.level = level;
         this.duration = duration;
+        this.sampling = sampling;
     }
 
     public String getLoggerName() {
@@ -27,4 +37,8 @@ public class LoggerChangeRequest {
     public Duration getDuration() {
         return duration;
     }
+
+    public LogSampling getSampling() {
+        return sampling;
+    }
 }
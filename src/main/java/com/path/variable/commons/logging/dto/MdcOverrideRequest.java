@@ -0,0 +1,48 @@
+package com.path.variable.commons.logging.dto;
+
+import java.time.Duration;
+
+/**
+ * Enables a level for a logger and its children only while the logging thread has the given MDC value, ex. DEBUG
+ * for "com.acme.checkout" where "tenant" is "acme".
+ */
+public class MdcOverrideRequest {
+
+    private final String loggerName;
+
+    private final String level;
+
+    private final String mdcKey;
+
+    private final String mdcValue;
+
+    private final Duration duration;
+
+    public MdcOverrideRequest(String loggerName, String level, String mdcKey, String mdcValue, Duration duration) {
+        this.loggerName = loggerName;
+        this.level = level;
+        this.mdcKey = mdcKey;
+        this.mdcValue = mdcValue;
+        this.duration = duration;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public String getMdcKey() {
+        return mdcKey;
+    }
+
+    public String getMdcValue() {
+        return mdcValue;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+}
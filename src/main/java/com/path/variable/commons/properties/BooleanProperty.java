@@ -0,0 +1,33 @@
+package com.path.variable.commons.properties;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A {@link ConfigKey} for boolean values that is read through {@link #getAsBoolean()} without boxing.
+ */
+public final class BooleanProperty extends ConfigKey<Boolean> implements BooleanSupplier {
+
+    private final boolean defaultValue;
+
+    private volatile boolean value;
+
+    BooleanProperty(String key, boolean defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        return value;
+    }
+
+    @Override
+    public Boolean get() {
+        return value;
+    }
+
+    @Override
+    void refresh(Configuration configuration) {
+        value = configuration.getBoolean(getKey(), defaultValue);
+    }
+}
@@ -0,0 +1,41 @@
+package com.path.variable.commons.properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import static java.lang.String.format;
+
+/**
+ * Loads a property file from the root of the classpath.
+ */
+final class ClasspathSource implements ConfigurationSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClasspathSource.class);
+
+    private final String name;
+
+    ClasspathSource(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Properties load() {
+        var properties = new Properties();
+        try (var resource = Configuration.class.getResourceAsStream(format("/%s", name))) {
+            if (resource != null) {
+                properties.load(resource);
+            }
+        } catch (IOException e) {
+            LOG.error("Error while reading resources property file {}.", name);
+        }
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "classpath:" + name;
+    }
+}
@@ -0,0 +1,304 @@
+package com.path.variable.commons.properties;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An immutable, memory compact map for configurations with hundreds of thousands of keys.
+ * Keys are sorted and stored as UTF-8 in a single byte array, equal values are stored only once in a second byte
+ * array. Lookups go through an open addressing table of entry indexes, so the whole store consists of a handful of
+ * arrays instead of one entry object plus two strings per property.
+ * The price is that every returned value is decoded into a new string, which is why the typed getters of
+ * {@link Configuration} memoize parsed values.
+ */
+final class CompactPropertyStore extends AbstractMap<String, String> {
+
+    private final byte[] keys;
+
+    private final int[] keyOffsets;
+
+    private final int[] hashes;
+
+    private final int[] valueIndexes;
+
+    private final byte[] values;
+
+    private final int[] valueOffsets;
+
+    private final int[] table;
+
+    private final int mask;
+
+    private CompactPropertyStore(byte[] keys, int[] keyOffsets, int[] hashes, int[] valueIndexes, byte[] values,
+                                 int[] valueOffsets) {
+        this.keys = keys;
+        this.keyOffsets = keyOffsets;
+        this.hashes = hashes;
+        this.valueIndexes = valueIndexes;
+        this.values = values;
+        this.valueOffsets = valueOffsets;
+        this.table = new int[tableSize(hashes.length)];
+        this.mask = table.length - 1;
+        for (int entry = 0; entry < hashes.length; entry++) {
+            int slot = hashes[entry] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+    }
+
+    static CompactPropertyStore of(Map<String, String> map) {
+        var builder = builder();
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    private static CompactPropertyStore of(String[] sortedKeys, String[] sortedValues) {
+        var keyBytes = new ByteSink();
+        var valueBytes = new ByteSink();
+        var keyOffsets = new int[sortedKeys.length + 1];
+        var hashes = new int[sortedKeys.length];
+        var valueIndexes = new int[sortedKeys.length];
+        var distinctValues = new HashMap<String, Integer>();
+        var valueOffsets = new int[sortedKeys.length + 1];
+
+        for (int i = 0; i < sortedKeys.length; i++) {
+            keyOffsets[i] = keyBytes.size();
+            keyBytes.write(sortedKeys[i].getBytes(UTF_8));
+            hashes[i] = hash(sortedKeys[i]);
+            var value = sortedValues[i];
+            var index = distinctValues.get(value);
+            if (index == null) {
+                index = distinctValues.size();
+                distinctValues.put(value, index);
+                valueOffsets[index] = valueBytes.size();
+                valueBytes.write(value.getBytes(UTF_8));
+            }
+            valueIndexes[i] = index;
+        }
+        keyOffsets[sortedKeys.length] = keyBytes.size();
+        valueOffsets[distinctValues.size()] = valueBytes.size();
+
+        return new CompactPropertyStore(keyBytes.toByteArray(), keyOffsets, hashes, valueIndexes,
+                valueBytes.toByteArray(), Arrays.copyOf(valueOffsets, distinctValues.size() + 1));
+    }
+
+    @Override
+    public String get(Object key) {
+        int entry = indexOf(key);
+        return entry < 0 ? null : valueAt(entry);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return hashes.length;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int entry;
+
+                    @Override
+                    public boolean hasNext() {
+                        return entry < hashes.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        var result = new SimpleImmutableEntry<>(keyAt(entry), valueAt(entry));
+                        entry++;
+                        return result;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return hashes.length;
+            }
+        };
+    }
+
+    /**
+     * The number of distinct values, useful to judge how much the deduplication saves.
+     */
+    int distinctValues() {
+        return valueOffsets.length - 1;
+    }
+
+    String keyAt(int entry) {
+        return new String(keys, keyOffsets[entry], keyOffsets[entry + 1] - keyOffsets[entry], UTF_8);
+    }
+
+    String valueAt(int entry) {
+        int value = valueIndexes[entry];
+        return new String(values, valueOffsets[value], valueOffsets[value + 1] - valueOffsets[value], UTF_8);
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        var name = (String) key;
+        int hash = hash(name);
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            entry--;
+            if (hashes[entry] == hash && keyEquals(entry, name)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(int entry, String name) {
+        int offset = keyOffsets[entry];
+        int length = keyOffsets[entry + 1] - offset;
+        if (length < name.length()) {
+            return false;
+        }
+        // compare ASCII keys in place, only keys with other characters are encoded for the comparison
+        if (length == name.length()) {
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                char c = name.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                } else if (keys[offset + i] != c) {
+                    return false;
+                }
+            }
+            if (ascii) {
+                return true;
+            }
+        }
+        var encoded = name.getBytes(UTF_8);
+        return Arrays.equals(keys, offset, offset + length, encoded, 0, encoded.length);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int entries) {
+        int size = 2;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Collects the entries of a store as they are parsed, without a map in between. A later entry for a key replaces
+     * an earlier one, duplicates are only resolved when the store is built.
+     */
+    static final class Builder {
+
+        private String[] keys = new String[256];
+
+        private String[] values = new String[256];
+
+        private int size;
+
+        private Builder() {
+        }
+
+        Builder put(String key, String value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        Builder putAll(Builder other) {
+            for (int i = 0; i < other.size; i++) {
+                put(other.keys[i], other.values[i]);
+            }
+            return this;
+        }
+
+        CompactPropertyStore build() {
+            var order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // stable, so the last of equal keys is the one that was put last
+            Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+            var sortedKeys = new String[size];
+            var sortedValues = new String[size];
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                int entry = order[i];
+                if (distinct > 0 && sortedKeys[distinct - 1].equals(keys[entry])) {
+                    distinct--;
+                }
+                sortedKeys[distinct] = keys[entry];
+                sortedValues[distinct] = values[entry];
+                distinct++;
+            }
+            return of(Arrays.copyOf(sortedKeys, distinct), Arrays.copyOf(sortedValues, distinct));
+        }
+    }
+
+    /**
+     * A growable byte buffer used while building the store.
+     */
+    private static final class ByteSink {
+
+        private byte[] bytes = new byte[256];
+
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void write(byte[] data) {
+            ensureCapacity(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
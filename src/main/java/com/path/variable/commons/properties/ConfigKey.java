@@ -0,0 +1,62 @@
+package com.path.variable.commons.properties;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A typed handle for a single configuration key. The value is resolved once when the handle is created and
+ * re-resolved whenever {@link Configuration} reloads, so reading it costs a volatile field read instead of a
+ * string keyed lookup.
+ * Handles are registered with the configuration that created them and live as long as it does. They are meant
+ * to be created once and kept in a (static) field, not created per call.
+ * If a reload produces a value that can not be parsed the handle keeps its previous value.
+ */
+public abstract class ConfigKey<T> implements Supplier<T> {
+
+    private final String key;
+
+    ConfigKey(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    abstract void refresh(Configuration configuration);
+
+    static <T> ConfigKey<T> of(String key, Function<String, T> parser, T defaultValue) {
+        return new ObjectKey<>(key, parser, defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + get();
+    }
+
+    private static final class ObjectKey<T> extends ConfigKey<T> {
+
+        private final Function<String, T> parser;
+
+        private final T defaultValue;
+
+        private volatile T value;
+
+        private ObjectKey(String key, Function<String, T> parser, T defaultValue) {
+            super(key);
+            this.parser = parser;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+
+        @Override
+        void refresh(Configuration configuration) {
+            var stringValue = configuration.getString(getKey());
+            value = stringValue == null ? defaultValue : parser.apply(stringValue);
+        }
+    }
+}
@@ -3,28 +3,44 @@ package com.path.variable.commons.properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.text.MessageFormat;
-import java.util.Arrays;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import static java.lang.String.format;
-import static java.util.function.Function.identity;
+import static com.path.variable.commons.properties.ValueType.*;
+import static java.util.Collections.unmodifiableSet;
 
 /**
- * The main class for the configuration component. The component is initialized statically and concurrency concerns
- * are handled by propagating to dependent components from a constants class (ex. ApplicationConstants.java) that is
- * initialized at application startup.
+ * The main class for the configuration component. The component is initialized lazily on first access and concurrency
+ * concerns are handled by propagating to dependent components from a constants class (ex. ApplicationConstants.java)
+ * that is initialized at application startup.
+ * Applications that need other sources than the default files can bootstrap the component explicitly at startup,
+ * see {@link #bootstrap()}.
  * Supports loading properties with wrappers for Java primitive types Integer, Double, Boolean and String.
  * Also includes a convenience method for getting a comma-separated list from a property entry.
+ * Parsed values and lists are memoized per key and type, lists are returned unmodifiable.
+ * Loaded properties are kept in an immutable snapshot that is published atomically, reads never take a lock.
+ * The property files can optionally be watched for changes and hot reloaded, see {@link #startWatching()}.
+ * Components that cache derived state can register a {@link ConfigurationListener} to be told about changes.
+ * Entries can be listed by key prefix and namespaces can be extracted as sub-configurations, see
+ * {@link #subset(String)}.
+ * Key usage, misses and load times can be tracked through {@link #getMetrics()}.
+ * Hot paths can read values through typed handles, see {@link #intProperty(String, int)}, which are refreshed
+ * on every reload.
  * Supports environment specific property files based on a prefix. The environment prefix can be passed as a
  * JVM argument on application startup.
  * The base filename for the properties file is "app.properties".
@@ -39,191 +55,419 @@ import static java.util.function.Function.identity;
  *    a) Environment specific file
  *    b) Generic file
  * Also provides helper methods that allow for specifying a default value when getting the property.
- * Uses MessageFormat to allow for interpolation of arguments within the property key.
+ * Uses MessageFormat to allow for interpolation of arguments within the property key. Key patterns are compiled
+ * once and cached, keys without placeholders are used as is.
  */
 public class Configuration {
 
     private static final Logger LOG = LoggerFactory.getLogger(Configuration.class);
 
-    private static final String BASE_FILENAME = "app.properties";
+    private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
 
-    private static final String COMMONS_ENVIRONMENT = "commons.environment";
+    private static final AtomicReference<Configuration> configuration = new AtomicReference<>();
 
-    private static final Configuration configuration;
+    /**
+     * Returns the bootstrapped configuration or, if none was installed, lazily loads the default sources on first
+     * access. Loading happens in a holder class, so merely referencing Configuration does no I/O.
+     */
+    public static Configuration getConfiguration() {
+        var installed = configuration.get();
+        return installed != null ? installed : DefaultHolder.DEFAULT;
+    }
 
-    static {
-        configuration = new Configuration();
+    /**
+     * Starts building a configuration from custom sources, ex.
+     * {@code Configuration.bootstrap().defaults().file(Path.of("routing.properties")).parallel().install()}.
+     */
+    public static Builder bootstrap() {
+        return new Builder();
     }
 
-    public static Configuration getConfiguration() {
-        return configuration;
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+
+    private final Set<ConfigKey<?>> handles = ConcurrentHashMap.newKeySet();
+
+    private final Object reloadLock = new Object();
+
+    private volatile ConfigurationSnapshot snapshot;
+
+    private ConfigurationWatcher watcher;
+
+    private final ConfigurationMetrics metrics = new ConfigurationMetrics();
+
+    private final ConfigurationLoader loader;
+
+    private final boolean compact;
+
+    private Configuration(List<ConfigurationSource> sources, Executor executor, boolean compact) {
+        this.loader = new ConfigurationLoader(sources, executor, metrics);
+        this.compact = compact;
+        this.snapshot = loadSnapshot();
     }
 
-    private final Properties properties;
+    private Configuration(Map<String, String> values) {
+        this.loader = null;
+        this.compact = false;
+        this.snapshot = new ConfigurationSnapshot(values, metrics);
+    }
 
-    private Configuration() {
-        this.properties = new Properties();
-        loadResourceAndFile(properties, BASE_FILENAME);
+    /**
+     * Rereads all property sources and atomically swaps in the new values. Listeners are notified if any
+     * value changed. Readers see either the old or the new values, never a mix of both.
+     * Has no effect on sub-configurations created by {@link #subset(String)}.
+     */
+    public void reload() {
+        if (loader == null) {
+            return;
+        }
+        synchronized (reloadLock) {
+            var start = System.nanoTime();
+            var previous = snapshot;
+            var current = loadSnapshot();
+            this.snapshot = current;
+            metrics.reloaded(System.nanoTime() - start);
+            handles.forEach(this::refresh);
+            notifyListeners(previous.values(), current.values());
+        }
+    }
+
+    private ConfigurationSnapshot loadSnapshot() {
+        return compact ? new ConfigurationSnapshot(loader.loadCompact(), metrics)
+                : new ConfigurationSnapshot(loader.load(), metrics);
+    }
 
-        var env = System.getProperty(COMMONS_ENVIRONMENT);
-        env = env == null ? properties.getProperty(COMMONS_ENVIRONMENT) : env;
-        var envFilename = env != null ? format("%s_%s", env, BASE_FILENAME) : null;
-        if (envFilename != null) loadResourceAndFile(properties, envFilename);
+    public void startWatching() {
+        startWatching(DEFAULT_DEBOUNCE);
+    }
+
+    /**
+     * Opt-in hot reload. Watches the working directory for changes to the generic and environment specific
+     * property files and reloads once no further writes were seen for the given debounce duration.
+     */
+    public synchronized void startWatching(Duration debounce) {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watcher = new ConfigurationWatcher(Paths.get("").toAbsolutePath(), EnvironmentSource::isPropertyFile,
+                    debounce, this::reload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not watch the configuration directory", e);
+        }
+    }
+
+    public synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Registers a listener that is notified about every reload that changed at least one value.
+     */
+    public void addListener(ConfigurationListener listener) {
+        listeners.add(new Registration(null, listener));
+    }
+
+    /**
+     * Registers a listener that is only notified when the value of the given key changed.
+     */
+    public void addListener(String key, ConfigurationListener listener) {
+        listeners.add(new Registration(key, listener));
+    }
+
+    public void removeListener(ConfigurationListener listener) {
+        listeners.removeIf(registration -> registration.listener == listener);
     }
 
     public String getString(String key) {
-        return properties.getProperty(key);
+        return snapshot.get(key);
     }
 
     public String getString(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return snapshot.get(key, defaultValue);
     }
 
     public String getString(String key, Object... args) {
-        return properties.getProperty(new MessageFormat(key).format(args));
+        return snapshot.get(interpolate(key, args));
     }
 
     public String getString(String key, String defaultValue, Object... args) {
-        var result = properties.getProperty(new MessageFormat(key).format(args));
-        return result == null ? defaultValue : result;
+        return getString(interpolate(key, args), defaultValue);
     }
 
     public Integer getInteger(String key) {
-        var stringValue = getString(key);
-        return Integer.valueOf(stringValue);
+        return snapshot.get(key, INTEGER);
     }
 
     public Integer getInteger(String key, Integer defaultValue) {
-        var stringValue = getString(key);
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Integer.valueOf(stringValue);
+        return snapshot.get(key, INTEGER, defaultValue);
     }
 
     public Integer getInteger(String key, Integer defaultValue, Object... args) {
-        var stringValue = getString(new MessageFormat(key).format(args));
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Integer.valueOf(stringValue);
+        return snapshot.get(interpolate(key, args), INTEGER, defaultValue);
     }
 
     public Double getDouble(String key) {
-        var stringValue = getString(key);
-        return Double.valueOf(stringValue);
+        return snapshot.get(key, DOUBLE);
     }
 
     public Double getDouble(String key, Double defaultValue) {
-        var stringValue = getString(key);
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Double.valueOf(stringValue);
+        return snapshot.get(key, DOUBLE, defaultValue);
     }
 
     public Double getDouble(String key, Object args) {
-        var stringValue = getString(new MessageFormat(key).format(args));
-        return Double.valueOf(stringValue);
+        return snapshot.get(interpolate(key, (Object[]) args), DOUBLE);
     }
 
     public Double getDouble(String key, Double defaultValue, Object args) {
-        var stringValue = getString(new MessageFormat(key).format(args));
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Double.valueOf(stringValue);
+        return snapshot.get(interpolate(key, (Object[]) args), DOUBLE, defaultValue);
     }
 
     public Boolean getBoolean(String key) {
-        return Boolean.parseBoolean(getString(key));
+        return snapshot.get(key, BOOLEAN);
     }
 
     public Boolean getBoolean(String key, Boolean defaultValue) {
-        var stringValue = getString(key);
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Boolean.parseBoolean(stringValue);
+        return snapshot.get(key, BOOLEAN, defaultValue);
     }
 
     public Boolean getBoolean(String key, Object... args) {
-        return Boolean.parseBoolean(getString(new MessageFormat(key).format(args)));
+        return snapshot.get(interpolate(key, args), BOOLEAN);
     }
 
     public Boolean getBoolean(String key, Boolean defaultValue, Object... args) {
-        var stringValue = getString(new MessageFormat(key).format(args));
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Boolean.parseBoolean(stringValue);
+        return snapshot.get(interpolate(key, args), BOOLEAN, defaultValue);
     }
 
     public Long getLong(String key) {
-        return Long.valueOf(getString(key));
+        return snapshot.get(key, LONG);
     }
 
     public Long getLong(String key, Long defaultValue) {
-        var stringValue = getString(key);
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Long.valueOf(stringValue);
+        return snapshot.get(key, LONG, defaultValue);
     }
 
     public Long getLong(String key, Long defaultValue, Object... args) {
-        var stringValue = getString(new MessageFormat(key).format(args));
-        if (stringValue == null) {
-            return defaultValue;
-        }
-        return Long.valueOf(stringValue);
+        return snapshot.get(interpolate(key, args), LONG, defaultValue);
+    }
+
+    /**
+     * Returns the usage metrics of this configuration. Lookup counting has to be enabled explicitly, either through
+     * {@link ConfigurationMetrics#setEnabled(boolean)} or over JMX after {@link ConfigurationMetrics#registerMBean}.
+     */
+    public ConfigurationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns all entries whose keys start with the given prefix, with their full keys and in key order.
+     * The result is an unmodifiable view of the current values that is not updated by later reloads.
+     */
+    public Map<String, String> getByPrefix(String prefix) {
+        return snapshot.withPrefix(prefix);
+    }
+
+    public Map<String, String> getByPrefix(String prefix, Object... args) {
+        return getByPrefix(interpolate(prefix, args));
+    }
+
+    /**
+     * Returns a configuration of the entries under the given namespace with the namespace removed from their keys,
+     * ex. subset("db.pool") contains "db.pool.size" as "size". Supports all typed getters.
+     * The sub-configuration reflects the values at the time it was created, it does not take part in reloads.
+     */
+    public Configuration subset(String prefix) {
+        var namespace = prefix.isEmpty() || prefix.endsWith(".") ? prefix : prefix + ".";
+        var values = new HashMap<String, String>();
+        snapshot.withPrefix(namespace).forEach((key, value) -> values.put(key.substring(namespace.length()), value));
+        return new Configuration(Map.copyOf(values));
+    }
+
+    public Configuration subset(String prefix, Object... args) {
+        return subset(interpolate(prefix, args));
+    }
+
+    public IntProperty intProperty(String key, int defaultValue) {
+        return register(new IntProperty(key, defaultValue));
+    }
+
+    public LongProperty longProperty(String key, long defaultValue) {
+        return register(new LongProperty(key, defaultValue));
+    }
+
+    public BooleanProperty booleanProperty(String key, boolean defaultValue) {
+        return register(new BooleanProperty(key, defaultValue));
+    }
+
+    public <T> ConfigKey<T> property(String key, Function<String, T> parser, T defaultValue) {
+        return register(ConfigKey.of(key, parser, defaultValue));
     }
 
     public List<String> getStringList(String key) {
-        return getListForKeyAndParser(key, identity());
+        return snapshot.get(key, STRING_LIST);
     }
 
     public List<Integer> getIntegerList(String key) {
-        return getListForKeyAndParser(key, Integer::valueOf);
+        return snapshot.get(key, INTEGER_LIST);
     }
 
     public List<Double> getDoubleList(String key) {
-        return getListForKeyAndParser(key, Double::valueOf);
+        return snapshot.get(key, DOUBLE_LIST);
     }
 
     public List<Boolean> getBooleanList(String key) {
-        return getListForKeyAndParser(key, Boolean::parseBoolean);
+        return snapshot.get(key, BOOLEAN_LIST);
     }
 
-    private <T> List<T>  getListForKeyAndParser(String key, Function<String, T> parser) {
-        return Optional.ofNullable(getString(key))
-                       .map(s -> s.split(","))
-                       .map(Arrays::stream)
-                       .orElseGet(Stream::empty)
-                       .map(String::trim)
-                       .map(parser)
-                       .collect(Collectors.toList());
+    private <K extends ConfigKey<?>> K register(K handle) {
+        synchronized (reloadLock) {
+            handle.refresh(this);
+            handles.add(handle);
+        }
+        return handle;
     }
 
+    private void refresh(ConfigKey<?> handle) {
+        try {
+            handle.refresh(this);
+        } catch (RuntimeException e) {
+            LOG.error("Could not refresh configuration handle {}, keeping the previous value", handle.getKey(), e);
+        }
+    }
 
+    private void notifyListeners(Map<String, String> previous, Map<String, String> current) {
+        var changedKeys = new HashSet<String>();
+        previous.forEach((key, value) -> {
+            if (!value.equals(current.get(key))) changedKeys.add(key);
+        });
+        current.keySet().stream().filter(key -> !previous.containsKey(key)).forEach(changedKeys::add);
+        if (changedKeys.isEmpty()) {
+            return;
+        }
 
-    private static void loadResourceAndFile(Properties properties, String filename) {
-        var resource = Configuration.class.getResourceAsStream(format("/%s",filename));
-        if (resource != null) {
-            try {
-                properties.load(resource);
-            } catch (IOException e) {
-                LOG.error("Error while reading base resources property file.");
+        var change = new ConfigurationChange(unmodifiableSet(changedKeys), previous, current);
+        for (var registration : listeners) {
+            if (registration.key == null || changedKeys.contains(registration.key)) {
+                try {
+                    registration.listener.onChange(change);
+                } catch (RuntimeException e) {
+                    LOG.error("Configuration listener failed while handling a change of {}", changedKeys, e);
+                }
             }
         }
+    }
 
-        try {
-            var fis = new FileInputStream(new File(filename));
-            properties.load(fis);
-        } catch (FileNotFoundException e) {
-            LOG.debug("no properties file outside of resources folder found for name {}", filename);
-        } catch (IOException e) {
-            LOG.debug("Error while reading properties file {}", filename);
+    private static String interpolate(String key, Object[] args) {
+        return KeyTemplate.format(key, args);
+    }
+
+    private static class Registration {
+
+        private final String key;
+
+        private final ConfigurationListener listener;
+
+        private Registration(String key, ConfigurationListener listener) {
+            this.key = key;
+            this.listener = listener;
+        }
+    }
+
+    private static class DefaultHolder {
+
+        private static final Configuration DEFAULT = initialize();
+
+        private static Configuration initialize() {
+            configuration.compareAndSet(null, bootstrap().defaults().build());
+            return configuration.get();
+        }
+    }
+
+    /**
+     * Builds a configuration from an ordered list of sources. Later sources override earlier ones.
+     */
+    public static class Builder {
+
+        private final List<ConfigurationSource> sources = new ArrayList<>();
+
+        private Executor executor;
+
+        private boolean compact;
+
+        private Builder() {}
+
+        /**
+         * Adds the sources {@link Configuration#getConfiguration()} loads by default.
+         */
+        public Builder defaults() {
+            return source(ConfigurationSource.defaults());
+        }
+
+        public Builder classpath(String name) {
+            return source(ConfigurationSource.classpath(name));
+        }
+
+        public Builder file(Path path) {
+            return source(ConfigurationSource.file(path));
+        }
+
+        public Builder mappedFile(Path path) {
+            return source(ConfigurationSource.mappedFile(path));
+        }
+
+        public Builder values(Map<String, String> values) {
+            return source(ConfigurationSource.values(values));
+        }
+
+        public Builder source(ConfigurationSource source) {
+            sources.add(source);
+            return this;
+        }
+
+        /**
+         * Loads all sources concurrently on the common fork join pool.
+         */
+        public Builder parallel() {
+            return parallel(ForkJoinPool.commonPool());
+        }
+
+        public Builder parallel(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Stores the properties in a compact layout with deduplicated values. Meant for configurations with
+         * hundreds of thousands of keys, it trades an allocation per string lookup for a much smaller heap.
+         * Mapped files are parsed straight into the compact store.
+         */
+        public Builder compact() {
+            this.compact = true;
+            return this;
+        }
+
+        /**
+         * Loads the sources and returns a standalone configuration that is not visible through
+         * {@link Configuration#getConfiguration()}.
+         */
+        public Configuration build() {
+            return new Configuration(sources, executor, compact);
+        }
+
+        /**
+         * Loads the sources and installs the result as the configuration returned by
+         * {@link Configuration#getConfiguration()}.
+         *
+         * @throws IllegalStateException if a configuration was already installed or the default one was loaded
+         */
+        public Configuration install() {
+            var built = build();
+            if (!configuration.compareAndSet(null, built)) {
+                throw new IllegalStateException("Configuration has already been initialized");
+            }
+            return built;
         }
     }
 }
@@ -0,0 +1,45 @@
+package com.path.variable.commons.properties;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes the keys that were added, removed or modified by a reload of {@link Configuration}.
+ */
+public class ConfigurationChange {
+
+    private final Set<String> changedKeys;
+
+    private final Map<String, String> previousValues;
+
+    private final Map<String, String> currentValues;
+
+    ConfigurationChange(Set<String> changedKeys, Map<String, String> previousValues,
+                        Map<String, String> currentValues) {
+        this.changedKeys = changedKeys;
+        this.previousValues = previousValues;
+        this.currentValues = currentValues;
+    }
+
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    public boolean isChanged(String key) {
+        return changedKeys.contains(key);
+    }
+
+    /**
+     * @return the value before the reload or null if the key was added
+     */
+    public String getPreviousValue(String key) {
+        return previousValues.get(key);
+    }
+
+    /**
+     * @return the value after the reload or null if the key was removed
+     */
+    public String getValue(String key) {
+        return currentValues.get(key);
+    }
+}
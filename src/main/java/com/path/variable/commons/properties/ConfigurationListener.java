@@ -0,0 +1,12 @@
+package com.path.variable.commons.properties;
+
+/**
+ * Callback notified after a reload of {@link Configuration} published new property values.
+ * Listeners are called on the thread that performed the reload, the new values are already visible to all
+ * readers at that point.
+ */
+@FunctionalInterface
+public interface ConfigurationListener {
+
+    void onChange(ConfigurationChange change);
+}
@@ -0,0 +1,92 @@
+package com.path.variable.commons.properties;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Loads and merges the sources of a {@link Configuration}. When an executor is given all sources are read
+ * concurrently, the results are still merged in declaration order.
+ */
+final class ConfigurationLoader {
+
+    private final List<ConfigurationSource> sources;
+
+    private final Executor executor;
+
+    private final ConfigurationMetrics metrics;
+
+    ConfigurationLoader(List<ConfigurationSource> sources, Executor executor, ConfigurationMetrics metrics) {
+        this.sources = List.copyOf(sources);
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    Properties load() {
+        return loadAll(sources, executor, metrics);
+    }
+
+    static Properties loadAll(List<ConfigurationSource> sources, Executor executor, ConfigurationMetrics metrics) {
+        var merged = new Properties();
+        if (executor == null || sources.size() < 2) {
+            sources.forEach(source -> merged.putAll(load(source, executor, metrics)));
+            return merged;
+        }
+
+        // nested sources are loaded sequentially so that a bounded executor can not deadlock on itself
+        var futures = sources.stream()
+                             .map(source -> CompletableFuture.supplyAsync(() -> load(source, null, metrics), executor))
+                             .collect(toList());
+        futures.forEach(future -> merged.putAll(future.join()));
+        return merged;
+    }
+
+    /**
+     * Loads the sources straight into a compact store. Every source passes its entries to a builder, sources that are
+     * read concurrently get one each, which are merged in declaration order.
+     */
+    CompactPropertyStore loadCompact() {
+        var store = CompactPropertyStore.builder();
+        if (executor == null || sources.size() < 2) {
+            sources.forEach(source -> load(source, executor, metrics, store::put));
+            return store.build();
+        }
+
+        var futures = sources.stream()
+                             .map(source -> CompletableFuture.supplyAsync(() -> {
+                                 var entries = CompactPropertyStore.builder();
+                                 load(source, null, metrics, entries::put);
+                                 return entries;
+                             }, executor))
+                             .collect(toList());
+        futures.forEach(future -> store.putAll(future.join()));
+        return store.build();
+    }
+
+    private static void load(ConfigurationSource source, Executor executor, ConfigurationMetrics metrics,
+                             BiConsumer<String, String> entries) {
+        if (source instanceof EnvironmentSource) {
+            var properties = ((EnvironmentSource) source).load(executor, metrics);
+            properties.stringPropertyNames().forEach(name -> entries.accept(name, properties.getProperty(name)));
+            return;
+        }
+        var start = System.nanoTime();
+        source.load(entries);
+        metrics.loaded(source, System.nanoTime() - start);
+    }
+
+    private static Properties load(ConfigurationSource source, Executor executor, ConfigurationMetrics metrics) {
+        if (source instanceof EnvironmentSource) {
+            // the nested sources record their own timings
+            return ((EnvironmentSource) source).load(executor, metrics);
+        }
+        var start = System.nanoTime();
+        var properties = source.load();
+        metrics.loaded(source, System.nanoTime() - start);
+        return properties;
+    }
+}
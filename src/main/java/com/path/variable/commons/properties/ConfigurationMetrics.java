@@ -0,0 +1,209 @@
+package com.path.variable.commons.properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Optional usage metrics of a {@link Configuration}: how often each key is read, which keys are missing or fall
+ * back to a default, and how long loading each source and every reload took.
+ * Lookup counting is disabled by default. While disabled a lookup costs a single volatile read, while enabled it
+ * increments a striped {@link LongAdder} per key. To keep memory bounded at most {@link #MAX_TRACKED_KEYS} distinct
+ * keys are tracked, lookups of further keys are only counted in total.
+ * Load and reload timings are always recorded.
+ */
+public class ConfigurationMetrics implements ConfigurationMetricsMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationMetrics.class);
+
+    public static final int MAX_TRACKED_KEYS = 10_000;
+
+    private static final String OBJECT_NAME = "com.path.variable.commons:type=ConfigurationMetrics,name=%s";
+
+    private final Map<String, LongAdder> lookups = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> defaults = new ConcurrentHashMap<>();
+
+    private final LongAdder untracked = new LongAdder();
+
+    private final Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+
+    private final AtomicLong reloads = new AtomicLong();
+
+    private volatile long lastReloadNanos;
+
+    private volatile boolean enabled;
+
+    private ObjectName objectName;
+
+    ConfigurationMetrics() {}
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void lookup(String key, boolean found) {
+        if (enabled) {
+            increment(lookups, key);
+            if (!found) {
+                increment(misses, key);
+            }
+        }
+    }
+
+    void defaultFallback(String key) {
+        if (enabled) {
+            increment(defaults, key);
+        }
+    }
+
+    void loaded(ConfigurationSource source, long nanos) {
+        loadTimes.put(source.toString(), nanos);
+    }
+
+    void reloaded(long nanos) {
+        reloads.incrementAndGet();
+        lastReloadNanos = nanos;
+    }
+
+    @Override
+    public Map<String, Long> getLookupCounts() {
+        return sum(lookups);
+    }
+
+    @Override
+    public Map<String, Long> getMissCounts() {
+        return sum(misses);
+    }
+
+    @Override
+    public Map<String, Long> getDefaultFallbackCounts() {
+        return sum(defaults);
+    }
+
+    @Override
+    public long getUntrackedLookups() {
+        return untracked.sum();
+    }
+
+    /**
+     * @return the duration of the last load of every source, keyed by the description of the source
+     */
+    public Map<String, Duration> getLoadTimes() {
+        var result = new LinkedHashMap<String, Duration>();
+        loadTimes.forEach((source, nanos) -> result.put(source, Duration.ofNanos(nanos)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLoadTimesMillis() {
+        var result = new LinkedHashMap<String, Long>();
+        loadTimes.forEach((source, nanos) -> result.put(source, Duration.ofNanos(nanos).toMillis()));
+        return result;
+    }
+
+    @Override
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    public Duration getLastReloadDuration() {
+        return Duration.ofNanos(lastReloadNanos);
+    }
+
+    @Override
+    public long getLastReloadMillis() {
+        return getLastReloadDuration().toMillis();
+    }
+
+    /**
+     * @return the most frequently read keys, the best candidates for typed handles
+     */
+    @Override
+    public List<String> hottestKeys(int limit) {
+        return lookups.entrySet().stream()
+                      .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum())
+                                        .reversed())
+                      .limit(limit)
+                      .map(Map.Entry::getKey)
+                      .collect(toList());
+    }
+
+    @Override
+    public void reset() {
+        lookups.clear();
+        misses.clear();
+        defaults.clear();
+        untracked.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * "com.path.variable.commons:type=ConfigurationMetrics,name={name}", replacing a previous registration.
+     */
+    public synchronized void registerMBean(String name) {
+        unregisterMBean();
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var candidate = new ObjectName(String.format(OBJECT_NAME, ObjectName.quote(name)));
+            if (server.isRegistered(candidate)) {
+                server.unregisterMBean(candidate);
+            }
+            server.registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (JMException e) {
+            LOG.error("Could not register configuration metrics MBean {}", name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOG.debug("Could not unregister configuration metrics MBean {}", objectName, e);
+        }
+        objectName = null;
+    }
+
+    private void increment(Map<String, LongAdder> counters, String key) {
+        var counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= MAX_TRACKED_KEYS) {
+                if (counters == lookups) untracked.increment();
+                return;
+            }
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    private static Map<String, Long> sum(Map<String, LongAdder> counters) {
+        var result = new LinkedHashMap<String, Long>();
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package com.path.variable.commons.properties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link ConfigurationMetrics}.
+ */
+public interface ConfigurationMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getLookupCounts();
+
+    Map<String, Long> getMissCounts();
+
+    Map<String, Long> getDefaultFallbackCounts();
+
+    Map<String, Long> getLoadTimesMillis();
+
+    long getUntrackedLookups();
+
+    long getReloadCount();
+
+    long getLastReloadMillis();
+
+    List<String> hottestKeys(int limit);
+
+    void reset();
+}
@@ -0,0 +1,115 @@
+package com.path.variable.commons.properties;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable copy of the loaded properties that memoizes every parsed value by key and type after the first
+ * access. Parse failures are not cached, neither are missing keys.
+ * Raw values live in an immutable map, so reads take no locks unlike the synchronized {@link Properties}
+ * they were loaded with. Large configurations can use the {@link CompactPropertyStore} layout instead of a
+ * regular map. A snapshot is never updated. When the underlying properties change a new snapshot
+ * is published by {@link Configuration}, which discards all previously parsed values.
+ */
+final class ConfigurationSnapshot {
+
+    private final Map<String, String> values;
+
+    private final Map<ValueType, Map<String, Object>> parsed;
+
+    private final ConfigurationMetrics metrics;
+
+    private volatile String[] sortedKeys;
+
+    ConfigurationSnapshot(Properties properties) {
+        this(properties, new ConfigurationMetrics());
+    }
+
+    ConfigurationSnapshot(Properties properties, ConfigurationMetrics metrics) {
+        this(Map.copyOf(toMap(properties)), metrics);
+    }
+
+    ConfigurationSnapshot(Map<String, String> values, ConfigurationMetrics metrics) {
+        this.values = values;
+        this.metrics = metrics;
+        this.parsed = new EnumMap<>(ValueType.class);
+        for (var type : ValueType.values()) {
+            parsed.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    Map<String, String> values() {
+        return values;
+    }
+
+    String get(String key) {
+        var value = values.get(key);
+        metrics.lookup(key, value != null);
+        return value;
+    }
+
+    String get(String key, String defaultValue) {
+        var value = get(key);
+        return value == null ? fallback(key, defaultValue) : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, ValueType type) {
+        var value = get(key);
+        return (T) (value == null ? type.parse(null) : parse(key, value, type));
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, ValueType type, T defaultValue) {
+        var value = get(key);
+        return value == null ? fallback(key, defaultValue) : (T) parse(key, value, type);
+    }
+
+    /**
+     * Returns the entries whose keys start with the prefix. The sorted key index is built on first use, after that
+     * the cost depends on the number of matching keys, not on the size of the configuration.
+     */
+    Map<String, String> withPrefix(String prefix) {
+        var keys = sortedKeys();
+        int from = Arrays.binarySearch(keys, prefix);
+        from = from < 0 ? -from - 1 : from;
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(prefix)) {
+            to++;
+        }
+        return new PrefixView(prefix, keys, from, to, values);
+    }
+
+    private String[] sortedKeys() {
+        var keys = sortedKeys;
+        if (keys == null) {
+            keys = values.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            sortedKeys = keys;
+        }
+        return keys;
+    }
+
+    private <T> T fallback(String key, T defaultValue) {
+        metrics.defaultFallback(key);
+        return defaultValue;
+    }
+
+    private Object parse(String key, String value, ValueType type) {
+        var cache = parsed.get(type);
+        var result = cache.get(key);
+        return result != null ? result : cache.computeIfAbsent(key, k -> type.parse(value));
+    }
+
+    private static Map<String, String> toMap(Properties properties) {
+        var map = new HashMap<String, String>();
+        for (var name : properties.stringPropertyNames()) {
+            map.put(name, properties.getProperty(name));
+        }
+        return map;
+    }
+}
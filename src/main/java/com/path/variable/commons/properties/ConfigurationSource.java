@@ -0,0 +1,60 @@
+package com.path.variable.commons.properties;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+
+/**
+ * A source of properties for {@link Configuration}. Sources are loaded in the order they were added to the
+ * {@link Configuration.Builder}, values of later sources override values of earlier ones.
+ * A source that does not exist loads as empty properties.
+ */
+@FunctionalInterface
+public interface ConfigurationSource {
+
+    Properties load();
+
+    /**
+     * Passes the loaded entries to the consumer instead of collecting them, sources that parse their entries
+     * themselves skip the {@link Properties} in between.
+     */
+    default void load(BiConsumer<String, String> entries) {
+        var properties = load();
+        for (var name : properties.stringPropertyNames()) {
+            entries.accept(name, properties.getProperty(name));
+        }
+    }
+
+    /**
+     * The sources used by {@link Configuration#getConfiguration()} when no configuration was bootstrapped:
+     * "app.properties" from the classpath and the working directory, followed by the environment specific
+     * file of the environment named by the "commons.environment" system property or property.
+     */
+    static ConfigurationSource defaults() {
+        return new EnvironmentSource(ConfigurationSource::classpath, ConfigurationSource::file);
+    }
+
+    static ConfigurationSource classpath(String name) {
+        return new ClasspathSource(name);
+    }
+
+    static ConfigurationSource file(String filename) {
+        return new FileSource(Path.of(filename));
+    }
+
+    static ConfigurationSource file(Path path) {
+        return new FileSource(path);
+    }
+
+    /**
+     * A file that is memory mapped and parsed in place, intended for very large generated property files.
+     */
+    static ConfigurationSource mappedFile(Path path) {
+        return new MappedFileSource(path);
+    }
+
+    static ConfigurationSource values(Map<String, String> values) {
+        return new MapSource(values);
+    }
+}
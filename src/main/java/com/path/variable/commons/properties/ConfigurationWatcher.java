@@ -0,0 +1,106 @@
+package com.path.variable.commons.properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a directory for changes to property files and triggers a reload once writes have settled.
+ * Every relevant event restarts the debounce delay, so an editor saving a file in several steps results in a
+ * single reload. Reloads run on a background thread, never on the thread that polls the watch service.
+ */
+final class ConfigurationWatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationWatcher.class);
+
+    private final WatchService watchService;
+
+    private final Predicate<String> filenameFilter;
+
+    private final Runnable reload;
+
+    private final long debounceMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Thread pollingThread;
+
+    private ScheduledFuture<?> pendingReload;
+
+    ConfigurationWatcher(Path directory, Predicate<String> filenameFilter, Duration debounce, Runnable reload)
+            throws IOException {
+        this.watchService = directory.getFileSystem().newWatchService();
+        this.filenameFilter = filenameFilter;
+        this.reload = reload;
+        this.debounceMillis = debounce.toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "commons-configuration-reload"));
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.pollingThread = daemon(this::poll, "commons-configuration-watcher");
+        pollingThread.start();
+    }
+
+    private void poll() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var key = watchService.take();
+                var relevant = key.pollEvents().stream()
+                                  .filter(event -> event.kind() != OVERFLOW)
+                                  .map(event -> event.context().toString())
+                                  .anyMatch(filenameFilter);
+                if (relevant) {
+                    scheduleReload();
+                }
+                if (!key.reset()) {
+                    LOG.warn("Configuration directory is no longer accessible, stopped watching for changes");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = scheduler.schedule(this::runReload, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void runReload() {
+        try {
+            reload.run();
+        } catch (RuntimeException e) {
+            LOG.error("Error while reloading configuration", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pollingThread.interrupt();
+        scheduler.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOG.debug("Error while closing configuration watch service", e);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,59 @@
+package com.path.variable.commons.properties;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * The default "app.properties" sources followed by the sources of the environment specific file.
+ * The environment is taken from the "commons.environment" system property and, if that is not set, from the
+ * generic file, so the environment specific files can only be loaded after the generic ones.
+ */
+final class EnvironmentSource implements ConfigurationSource {
+
+    static final String BASE_FILENAME = "app.properties";
+
+    static final String COMMONS_ENVIRONMENT = "commons.environment";
+
+    private final Function<String, ConfigurationSource> resource;
+
+    private final Function<String, ConfigurationSource> file;
+
+    EnvironmentSource(Function<String, ConfigurationSource> resource, Function<String, ConfigurationSource> file) {
+        this.resource = resource;
+        this.file = file;
+    }
+
+    @Override
+    public Properties load() {
+        return load(null, new ConfigurationMetrics());
+    }
+
+    Properties load(Executor executor, ConfigurationMetrics metrics) {
+        var properties = ConfigurationLoader.loadAll(sourcesFor(BASE_FILENAME), executor, metrics);
+
+        var env = System.getProperty(COMMONS_ENVIRONMENT);
+        env = env == null ? properties.getProperty(COMMONS_ENVIRONMENT) : env;
+        if (env != null) {
+            var envSources = sourcesFor(format("%s_%s", env, BASE_FILENAME));
+            properties.putAll(ConfigurationLoader.loadAll(envSources, executor, metrics));
+        }
+        return properties;
+    }
+
+    static boolean isPropertyFile(String filename) {
+        return filename.equals(BASE_FILENAME) || filename.endsWith("_" + BASE_FILENAME);
+    }
+
+    private List<ConfigurationSource> sourcesFor(String filename) {
+        return List.of(resource.apply(filename), file.apply(filename));
+    }
+
+    @Override
+    public String toString() {
+        return "defaults";
+    }
+}
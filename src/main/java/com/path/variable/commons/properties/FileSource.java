@@ -0,0 +1,43 @@
+package com.path.variable.commons.properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Loads a property file from the file system. Relative paths are resolved against the working directory.
+ */
+final class FileSource implements ConfigurationSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileSource.class);
+
+    private final Path path;
+
+    FileSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Properties load() {
+        var properties = new Properties();
+        try (var stream = new BufferedInputStream(Files.newInputStream(path))) {
+            properties.load(stream);
+        } catch (NoSuchFileException e) {
+            LOG.debug("no properties file outside of resources folder found for name {}", path);
+        } catch (IOException e) {
+            LOG.debug("Error while reading properties file {}", path);
+        }
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "file:" + path;
+    }
+}
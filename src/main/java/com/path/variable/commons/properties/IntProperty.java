@@ -0,0 +1,33 @@
+package com.path.variable.commons.properties;
+
+import java.util.function.IntSupplier;
+
+/**
+ * A {@link ConfigKey} for int values that is read through {@link #getAsInt()} without boxing.
+ */
+public final class IntProperty extends ConfigKey<Integer> implements IntSupplier {
+
+    private final int defaultValue;
+
+    private volatile int value;
+
+    IntProperty(String key, int defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public int getAsInt() {
+        return value;
+    }
+
+    @Override
+    public Integer get() {
+        return value;
+    }
+
+    @Override
+    void refresh(Configuration configuration) {
+        value = configuration.getInteger(getKey(), defaultValue);
+    }
+}
@@ -0,0 +1,145 @@
+package com.path.variable.commons.properties;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A precompiled property key pattern used by the interpolating getters of {@link Configuration}.
+ * Produces the same result as {@code new MessageFormat(pattern).format(args)} without reparsing the pattern
+ * on every call.
+ * Patterns without placeholders or quotes are returned as is, patterns consisting only of plain {n}
+ * placeholders are split into literal segments once, and anything else falls back to a cloned MessageFormat.
+ * Compiled templates are kept in a bounded cache. Once the cache is full new patterns are compiled per call.
+ */
+final class KeyTemplate {
+
+    static final int MAX_CACHED_TEMPLATES = 1024;
+
+    private static final int MAX_INDEX_DIGITS = 6;
+
+    private static final Map<String, KeyTemplate> CACHE = new ConcurrentHashMap<>();
+
+    private final String pattern;
+
+    private final String[] literals;
+
+    private final int[] indexes;
+
+    private final Locale locale;
+
+    private final MessageFormat prototype;
+
+    private KeyTemplate(String pattern, String[] literals, int[] indexes, MessageFormat prototype) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.indexes = indexes;
+        this.prototype = prototype;
+        this.locale = prototype == null ? null : prototype.getLocale();
+    }
+
+    static String format(String pattern, Object[] args) {
+        return isConstant(pattern) ? pattern : forPattern(pattern).format(args);
+    }
+
+    static KeyTemplate forPattern(String pattern) {
+        var template = CACHE.get(pattern);
+        if (template == null) {
+            template = compile(pattern);
+            if (CACHE.size() < MAX_CACHED_TEMPLATES) {
+                CACHE.putIfAbsent(pattern, template);
+            }
+        }
+        return template;
+    }
+
+    static int cachedTemplates() {
+        return CACHE.size();
+    }
+
+    String format(Object[] args) {
+        if (prototype != null) {
+            return formatWithPrototype(args);
+        }
+        var builder = new StringBuilder(pattern.length() + 16 * indexes.length);
+        for (int i = 0; i < indexes.length; i++) {
+            builder.append(literals[i]);
+            appendArgument(builder, args, indexes[i]);
+        }
+        return builder.append(literals[indexes.length]).toString();
+    }
+
+    private String formatWithPrototype(Object[] args) {
+        if (!locale.equals(Locale.getDefault(Locale.Category.FORMAT))) {
+            return new MessageFormat(pattern).format(args);
+        }
+        return ((MessageFormat) prototype.clone()).format(args);
+    }
+
+    private static void appendArgument(StringBuilder builder, Object[] args, int index) {
+        if (args == null || index >= args.length) {
+            builder.append('{').append(index).append('}');
+            return;
+        }
+        var arg = args[index];
+        if (arg == null) {
+            builder.append("null");
+        } else if (arg instanceof String) {
+            builder.append((String) arg);
+        } else if (arg instanceof Number) {
+            builder.append(NumberFormat.getInstance(Locale.getDefault(Locale.Category.FORMAT)).format(arg));
+        } else if (arg instanceof Date) {
+            builder.append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT,
+                    Locale.getDefault(Locale.Category.FORMAT)).format(arg));
+        } else {
+            var text = arg.toString();
+            builder.append(text == null ? "null" : text);
+        }
+    }
+
+    private static boolean isConstant(String pattern) {
+        return pattern.indexOf('{') < 0 && pattern.indexOf('\'') < 0;
+    }
+
+    private static KeyTemplate compile(String pattern) {
+        if (pattern.indexOf('\'') >= 0) {
+            return new KeyTemplate(pattern, null, null, new MessageFormat(pattern));
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int start = 0;
+        int open = pattern.indexOf('{');
+        while (open >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (!isPlainIndex(pattern, open + 1, close)) {
+                return new KeyTemplate(pattern, null, null, new MessageFormat(pattern));
+            }
+            literals.add(pattern.substring(start, open));
+            indexes.add(Integer.parseInt(pattern.substring(open + 1, close)));
+            start = close + 1;
+            open = pattern.indexOf('{', start);
+        }
+        literals.add(pattern.substring(start));
+        return new KeyTemplate(pattern, literals.toArray(new String[0]),
+                indexes.stream().mapToInt(Integer::intValue).toArray(), null);
+    }
+
+    private static boolean isPlainIndex(String pattern, int from, int to) {
+        if (to < 0 || to == from || to - from > MAX_INDEX_DIGITS) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = pattern.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package com.path.variable.commons.properties;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link ConfigKey} for long values that is read through {@link #getAsLong()} without boxing.
+ */
+public final class LongProperty extends ConfigKey<Long> implements LongSupplier {
+
+    private final long defaultValue;
+
+    private volatile long value;
+
+    LongProperty(String key, long defaultValue) {
+        super(key);
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public long getAsLong() {
+        return value;
+    }
+
+    @Override
+    public Long get() {
+        return value;
+    }
+
+    @Override
+    void refresh(Configuration configuration) {
+        value = configuration.getLong(getKey(), defaultValue);
+    }
+}
@@ -0,0 +1,26 @@
+package com.path.variable.commons.properties;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Properties given in memory, ex. by tests or by applications that read their configuration from elsewhere.
+ */
+final class MapSource implements ConfigurationSource {
+
+    private final Properties properties = new Properties();
+
+    MapSource(Map<String, String> values) {
+        properties.putAll(values);
+    }
+
+    @Override
+    public Properties load() {
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "values:" + properties.size();
+    }
+}
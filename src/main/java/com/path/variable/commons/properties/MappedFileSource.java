@@ -0,0 +1,62 @@
+package com.path.variable.commons.properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Loads a property file by memory mapping it and parsing the mapped bytes in place, which avoids the stream
+ * buffering and decoding of {@link Properties#load(java.io.InputStream)} for very large generated files.
+ * Produces the same entries as {@link FileSource}. Files that are too large to be mapped in one piece are
+ * loaded through a stream instead.
+ */
+final class MappedFileSource implements ConfigurationSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileSource.class);
+
+    private final Path path;
+
+    MappedFileSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Properties load() {
+        var properties = new Properties();
+        load(properties::put);
+        return properties;
+    }
+
+    /**
+     * Parses the mapped file straight into the consumer, ex. the builder of a {@link CompactPropertyStore}.
+     */
+    @Override
+    public void load(BiConsumer<String, String> entries) {
+        try (var channel = FileChannel.open(path, READ)) {
+            var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                new FileSource(path).load(entries);
+                return;
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            new MappedPropertiesParser(buffer).parse(entries);
+        } catch (NoSuchFileException e) {
+            LOG.debug("no properties file outside of resources folder found for name {}", path);
+        } catch (IOException e) {
+            LOG.debug("Error while reading properties file {}", path);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "mapped:" + path;
+    }
+}
@@ -0,0 +1,202 @@
+package com.path.variable.commons.properties;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses the ISO 8859-1 encoded .properties format directly from a (memory mapped) byte buffer.
+ * Follows the rules of {@link java.util.Properties#load(java.io.InputStream)} exactly: natural and logical lines,
+ * comments, line continuations, key terminators and escape sequences, so both produce the same entries.
+ * A single line buffer is reused for the whole input and values without escapes are copied only once.
+ */
+final class MappedPropertiesParser {
+
+    private final ByteBuffer buffer;
+
+    private final int limit;
+
+    private int position;
+
+    private char[] line = new char[1024];
+
+    private char[] converted = new char[1024];
+
+    MappedPropertiesParser(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    void parse(BiConsumer<String, String> consumer) {
+        int length;
+        while ((length = readLine()) >= 0) {
+            int keyLength = 0;
+            int valueStart = length;
+            boolean hasSeparator = false;
+            boolean precedingBackslash = false;
+            while (keyLength < length) {
+                char c = line[keyLength];
+                if ((c == '=' || c == ':') && !precedingBackslash) {
+                    valueStart = keyLength + 1;
+                    hasSeparator = true;
+                    break;
+                } else if ((c == ' ' || c == '\t' || c == '\f') && !precedingBackslash) {
+                    valueStart = keyLength + 1;
+                    break;
+                }
+                precedingBackslash = c == '\\' && !precedingBackslash;
+                keyLength++;
+            }
+            while (valueStart < length) {
+                char c = line[valueStart];
+                if (c != ' ' && c != '\t' && c != '\f') {
+                    if (!hasSeparator && (c == '=' || c == ':')) {
+                        hasSeparator = true;
+                    } else {
+                        break;
+                    }
+                }
+                valueStart++;
+            }
+            var key = convert(0, keyLength);
+            var value = convert(valueStart, length - valueStart);
+            consumer.accept(key, value);
+        }
+    }
+
+    /**
+     * Reads the next logical line into the line buffer, mirroring the line reader of {@link java.util.Properties}
+     * including its handling of continuations at the very end of the input.
+     *
+     * @return the length of the line or -1 at the end of the input
+     */
+    private int readLine() {
+        int length = 0;
+        boolean skipWhiteSpace = true;
+        boolean appendedLineBegin = false;
+        boolean precedingBackslash = false;
+
+        while (true) {
+            if (position >= limit) {
+                if (length == 0) {
+                    return -1;
+                }
+                return precedingBackslash ? length - 1 : length;
+            }
+            char c = (char) (buffer.get(position++) & 0xFF);
+
+            if (skipWhiteSpace) {
+                if (c == ' ' || c == '\t' || c == '\f') {
+                    continue;
+                }
+                if (!appendedLineBegin && (c == '\r' || c == '\n')) {
+                    continue;
+                }
+                skipWhiteSpace = false;
+                appendedLineBegin = false;
+            }
+            if (length == 0 && (c == '#' || c == '!')) {
+                if (!skipComment()) {
+                    return -1;
+                }
+                skipWhiteSpace = true;
+                continue;
+            }
+
+            if (c != '\n' && c != '\r') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = c;
+                precedingBackslash = c == '\\' && !precedingBackslash;
+            } else {
+                if (length == 0) {
+                    skipWhiteSpace = true;
+                    continue;
+                }
+                if (position >= limit) {
+                    return precedingBackslash ? length - 1 : length;
+                }
+                if (!precedingBackslash) {
+                    return length;
+                }
+                length--;
+                skipWhiteSpace = true;
+                appendedLineBegin = true;
+                precedingBackslash = false;
+                if (c == '\r' && buffer.get(position) == '\n') {
+                    position++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of a comment line up to and including the first line terminator.
+     *
+     * @return false if the input ended before a line terminator was found
+     */
+    private boolean skipComment() {
+        while (position < limit) {
+            byte b = buffer.get(position++);
+            if (b == '\r' || b == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String convert(int offset, int length) {
+        int end = offset + length;
+        int firstEscape = -1;
+        for (int i = offset; i < end; i++) {
+            if (line[i] == '\\') {
+                firstEscape = i;
+                break;
+            }
+        }
+        if (firstEscape < 0) {
+            return new String(line, offset, length);
+        }
+
+        if (converted.length < length) {
+            converted = new char[Math.max(length, converted.length * 2)];
+        }
+        int out = firstEscape - offset;
+        System.arraycopy(line, offset, converted, 0, out);
+        int in = firstEscape;
+        while (in < end) {
+            char c = line[in++];
+            if (c != '\\') {
+                converted[out++] = c;
+                continue;
+            }
+            c = line[in++];
+            if (c == 'u') {
+                if (end - in < 4) {
+                    throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                }
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    value = (value << 4) + hexDigit(line[in++]);
+                }
+                converted[out++] = (char) value;
+            } else {
+                if (c == 't') c = '\t';
+                else if (c == 'r') c = '\r';
+                else if (c == 'n') c = '\n';
+                else if (c == 'f') c = '\f';
+                converted[out++] = c;
+            }
+        }
+        return new String(converted, 0, out);
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return 10 + c - 'a';
+        if (c >= 'A' && c <= 'F') return 10 + c - 'A';
+        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+    }
+}
@@ -0,0 +1,79 @@
+package com.path.variable.commons.properties;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An unmodifiable, ordered view of the entries whose keys start with a prefix. The view is backed by a range of
+ * the sorted key index of a {@link ConfigurationSnapshot}, so creating it does not copy any entries.
+ */
+final class PrefixView extends AbstractMap<String, String> {
+
+    private final String prefix;
+
+    private final String[] sortedKeys;
+
+    private final int from;
+
+    private final int to;
+
+    private final Map<String, String> values;
+
+    PrefixView(String prefix, String[] sortedKeys, int from, int to, Map<String, String> values) {
+        this.prefix = prefix;
+        this.sortedKeys = sortedKeys;
+        this.from = from;
+        this.to = to;
+        this.values = values;
+    }
+
+    @Override
+    public String get(Object key) {
+        return key instanceof String && ((String) key).startsWith(prefix) ? values.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int index = from;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < to;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        var key = sortedKeys[index++];
+                        return new SimpleImmutableEntry<>(key, values.get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.path.variable.commons.properties;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * The value types supported by the typed getters of {@link Configuration}.
+ * A missing value is passed to the parser as null so that the getters without a default keep
+ * failing (or returning an empty list) the same way they always have.
+ */
+enum ValueType {
+
+    INTEGER(Integer::valueOf),
+    LONG(Long::valueOf),
+    DOUBLE(Double::valueOf),
+    BOOLEAN(Boolean::parseBoolean),
+    STRING_LIST(list(Function.identity())),
+    INTEGER_LIST(list(Integer::valueOf)),
+    DOUBLE_LIST(list(Double::valueOf)),
+    BOOLEAN_LIST(list(Boolean::parseBoolean));
+
+    private final Function<String, ?> parser;
+
+    ValueType(Function<String, ?> parser) {
+        this.parser = parser;
+    }
+
+    Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    private static Function<String, ?> list(Function<String, ?> elementParser) {
+        return value -> value == null ? Collections.emptyList() : Arrays.stream(value.split(","))
+                                                                         .map(String::trim)
+                                                                         .map(elementParser)
+                                                                         .collect(toUnmodifiableList());
+    }
+}
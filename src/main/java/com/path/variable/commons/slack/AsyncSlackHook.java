@@ -0,0 +1,330 @@
+package com.path.variable.commons.slack;
+
+import com.path.variable.commons.slack.exceptions.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.singletonMap;
+
+/**
+ * Sends Slack messages from a dedicated thread so that callers never wait for the network.
+ * Messages are queued in a bounded queue, what happens when it is full is decided by the {@link OverflowPolicy}.
+ * The sender coalesces messages that arrive within the linger time into a single webhook call: plain texts are
+ * joined line by line, block messages are merged into one message of at most {@link #MAX_BLOCKS} blocks.
+ * Every submitted message gets a future that completes once the payload containing it was sent.
+ */
+public class AsyncSlackHook implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncSlackHook.class);
+
+	/**
+	 * The maximum number of blocks Slack accepts in a single message.
+	 */
+	public static final int MAX_BLOCKS = 50;
+
+	/**
+	 * How often an idle sender checks whether the hook was closed. The sender is not interrupted on close so that a
+	 * send that is waiting for a rate limit or a retry is not aborted.
+	 */
+	private static final long CLOSE_CHECK_MILLIS = 50;
+
+	private final SlackHook hook;
+
+	private final BlockingDeque<Pending> queue;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final int maxBatchSize;
+
+	private final int maxTextLength;
+
+	private final long lingerNanos;
+
+	private final Thread sender;
+
+	private final LongAdder dropped = new LongAdder();
+
+	private volatile boolean closed;
+
+	private Pending carry;
+
+	private AsyncSlackHook(Builder builder) {
+		this.hook = builder.hook;
+		this.queue = new LinkedBlockingDeque<>(builder.capacity);
+		this.overflowPolicy = builder.overflowPolicy;
+		this.maxBatchSize = builder.maxBatchSize;
+		this.maxTextLength = builder.maxTextLength;
+		this.lingerNanos = builder.linger.toNanos();
+		this.sender = new Thread(this::run, "slack-sender-" + hook.getUrl().hashCode());
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	public static Builder builder(SlackHook hook) {
+		return new Builder(hook);
+	}
+
+	public CompletableFuture<Void> sendPlainText(String text) {
+		return submit(new Pending(text, null));
+	}
+
+	public CompletableFuture<Void> sendMessage(SlackMessage message) {
+		return submit(new Pending(null, message));
+	}
+
+	/**
+	 * @return the number of messages that were dropped because the queue was full
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * Stops accepting messages, sends everything that is still queued and stops the sender thread.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			sender.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private CompletableFuture<Void> submit(Pending pending) {
+		if (closed) {
+			return pending.fail(closedException());
+		}
+		switch (overflowPolicy) {
+			case BLOCK:
+				try {
+					queue.put(pending);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return pending.fail(e);
+				}
+				break;
+			case DROP_OLDEST:
+				while (!queue.offerLast(pending)) {
+					var evicted = queue.pollFirst();
+					if (evicted != null) {
+						drop(evicted);
+					}
+				}
+				break;
+			default:
+				if (!queue.offerLast(pending)) {
+					drop(pending);
+				}
+		}
+		// closed while the message was queued, the sender may already have drained the queue for the last time.
+		// Whoever removes the message from the queue completes its future.
+		if (closed && queue.remove(pending)) {
+			pending.fail(closedException());
+		}
+		return pending.future;
+	}
+
+	private void drop(Pending pending) {
+		dropped.increment();
+		pending.fail(new MessagingException("Slack message was dropped, the queue is full", null));
+	}
+
+	private void run() {
+		var batch = new ArrayList<Pending>(maxBatchSize);
+		while (!closed || !queue.isEmpty() || carry != null) {
+			try {
+				collect(batch);
+			} catch (InterruptedException e) {
+				// send what was collected, the sender only stops once the hook is closed
+			}
+			if (!batch.isEmpty()) {
+				send(batch);
+				batch.clear();
+			}
+		}
+		Pending rejected;
+		while ((rejected = queue.pollFirst()) != null) {
+			rejected.fail(closedException());
+		}
+	}
+
+	private static IllegalStateException closedException() {
+		return new IllegalStateException("Slack hook has been closed");
+	}
+
+	/**
+	 * Collects the next batch. A message that does not fit into the current batch is carried over to the next one.
+	 * The size of the coalesced payload is kept as the batch grows, plain texts are joined by one separator each.
+	 */
+	private void collect(List<Pending> batch) throws InterruptedException {
+		var first = carry;
+		carry = null;
+		while (first == null) {
+			if (closed && queue.isEmpty()) {
+				return;
+			}
+			first = queue.pollFirst(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		batch.add(first);
+		var plainText = first.text != null;
+		var textLength = plainText ? first.text.length() : 0;
+		var blockCount = first.blockCount();
+		var deadline = System.nanoTime() + lingerNanos;
+		while (batch.size() < maxBatchSize) {
+			var next = queue.pollFirst();
+			if (next == null) {
+				var remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || closed) {
+					return;
+				}
+				next = queue.pollFirst(remaining, TimeUnit.NANOSECONDS);
+				if (next == null) {
+					return;
+				}
+			}
+			plainText &= next.text != null;
+			textLength += plainText ? 1 + next.text.length() : 0;
+			blockCount += next.blockCount();
+			if (plainText ? textLength > maxTextLength : blockCount > MAX_BLOCKS) {
+				carry = next;
+				return;
+			}
+			batch.add(next);
+		}
+	}
+
+	private void send(List<Pending> batch) {
+		try {
+			hook.sendPayload(coalesce(batch));
+			batch.forEach(pending -> pending.future.complete(null));
+		} catch (RuntimeException e) {
+			LOG.debug("Could not send {} coalesced slack messages", batch.size(), e);
+			batch.forEach(pending -> pending.future.completeExceptionally(e));
+		}
+	}
+
+	private static Object coalesce(List<Pending> batch) {
+		if (batch.size() == 1) {
+			return batch.get(0).payload();
+		}
+		if (isPlainText(batch)) {
+			var text = new StringBuilder();
+			for (var pending : batch) {
+				text.append(pending == batch.get(0) ? "" : "\n").append(pending.text);
+			}
+			return singletonMap("text", (Object) text.toString());
+		}
+		var merged = new SlackMessage();
+		for (var pending : batch) {
+			if (pending.text != null) {
+				merged.addSection().getText().setText(pending.text);
+			} else {
+				merged.addBlocks(pending.message.blocks());
+			}
+		}
+		return merged;
+	}
+
+	private static boolean isPlainText(List<Pending> batch) {
+		return batch.stream().allMatch(pending -> pending.text != null);
+	}
+
+	private static class Pending {
+
+		private final String text;
+
+		private final SlackMessage message;
+
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private Pending(String text, SlackMessage message) {
+			this.text = text;
+			this.message = message;
+		}
+
+		private Object payload() {
+			return text != null ? singletonMap("text", (Object) text) : message;
+		}
+
+		private int blockCount() {
+			return text != null ? 1 : message.blocks().size();
+		}
+
+		private CompletableFuture<Void> fail(Throwable cause) {
+			future.completeExceptionally(cause);
+			return future;
+		}
+	}
+
+	public static class Builder {
+
+		private final SlackHook hook;
+
+		private int capacity = 1000;
+
+		private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+		private int maxBatchSize = 20;
+
+		private int maxTextLength = 4000;
+
+		private Duration linger = Duration.ofMillis(250);
+
+		private Builder(SlackHook hook) {
+			this.hook = hook;
+		}
+
+		public Builder capacity(int capacity) {
+			this.capacity = capacity;
+			return this;
+		}
+
+		public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+			this.overflowPolicy = overflowPolicy;
+			return this;
+		}
+
+		/**
+		 * The maximum number of messages coalesced into one webhook call, 1 disables coalescing.
+		 */
+		public Builder maxBatchSize(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		/**
+		 * The maximum length of a coalesced plain text message.
+		 */
+		public Builder maxTextLength(int maxTextLength) {
+			this.maxTextLength = maxTextLength;
+			return this;
+		}
+
+		/**
+		 * How long the sender waits for further messages to coalesce with the first one of a batch.
+		 */
+		public Builder linger(Duration linger) {
+			this.linger = linger;
+			return this;
+		}
+
+		public AsyncSlackHook build() {
+			return new AsyncSlackHook(this);
+		}
+	}
+}
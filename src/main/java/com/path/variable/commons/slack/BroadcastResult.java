@@ -0,0 +1,61 @@
+package com.path.variable.commons.slack;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a broadcast for one webhook.
+ */
+public class BroadcastResult {
+
+	public enum Status {
+		DELIVERED,
+		FAILED,
+		TIMED_OUT
+	}
+
+	private final String url;
+
+	private final Status status;
+
+	private final Throwable error;
+
+	private final Duration elapsed;
+
+	BroadcastResult(String url, Status status, Throwable error, Duration elapsed) {
+		this.url = url;
+		this.status = status;
+		this.error = error;
+		this.elapsed = elapsed;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public boolean isDelivered() {
+		return status == Status.DELIVERED;
+	}
+
+	/**
+	 * @return why the message was not delivered or null
+	 */
+	public Throwable getError() {
+		return error;
+	}
+
+	/**
+	 * @return the time from the start of the broadcast until the outcome was known
+	 */
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return url + ": " + status + " after " + elapsed.toMillis() + "ms";
+	}
+}
@@ -0,0 +1,338 @@
+package com.path.variable.commons.slack;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses repeated plain text messages before they reach a {@link SlackHook}.
+ * The first occurrence of a message is sent right away, repetitions with the same fingerprint within the window are
+ * only counted. When the window ends a single summary like "Disk full (&#215;342 in last 60s)" is sent for them and a
+ * new window starts, a message that was not repeated in its window is forgotten.
+ * A repetition costs a map lookup and a counter increment. When a new fingerprint arrives at {@code maxEntries} the
+ * background thread evicts roughly the least recently seen tenth, judged by a sample of the tracked fingerprints.
+ * Until it has, new fingerprints are still tracked up to twice the limit, beyond that they are sent without being
+ * deduplicated. Evictions and summaries are always handled by the background thread, never by the thread that sends
+ * a message.
+ * Block messages are passed through unchanged.
+ */
+public class DeduplicatingSlackHook implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DeduplicatingSlackHook.class);
+
+	/**
+	 * Last seen times are only updated when they are older than this, so that repetitions on many threads do not
+	 * keep writing the same field.
+	 */
+	private static final long LAST_SEEN_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * The number of fingerprints whose last seen times decide which ones are evicted.
+	 */
+	private static final int EVICTION_SAMPLE = 128;
+
+	private final SlackHook hook;
+
+	private final Function<String, ?> fingerprint;
+
+	private final long windowNanos;
+
+	private final String windowText;
+
+	private final int maxEntries;
+
+	private final Map<Object, Window> windows = new ConcurrentHashMap<>();
+
+	private final LongAdder suppressed = new LongAdder();
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final ScheduledExecutorService scheduler;
+
+	private DeduplicatingSlackHook(Builder builder) {
+		this.hook = builder.hook;
+		this.fingerprint = builder.fingerprint;
+		this.windowNanos = builder.window.toNanos();
+		this.windowText = describe(builder.window);
+		this.maxEntries = builder.maxEntries;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			var thread = new Thread(runnable, "slack-dedup-" + hook.getUrl().hashCode());
+			thread.setDaemon(true);
+			return thread;
+		});
+		var sweepNanos = Math.min(windowNanos, TimeUnit.SECONDS.toNanos(1));
+		scheduler.scheduleAtFixedRate(this::sweep, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public static Builder builder(SlackHook hook) {
+		return new Builder(hook);
+	}
+
+	public void sendPlainText(String text) {
+		var key = fingerprint.apply(text);
+		var now = System.nanoTime();
+		while (true) {
+			var window = windows.get(key);
+			if (window == null) {
+				if (windows.size() >= maxEntries) {
+					requestEviction();
+					if (windows.size() >= 2 * maxEntries) {
+						hook.sendPlainText(text);
+						return;
+					}
+				}
+				var opened = new Window(text, now);
+				if (windows.putIfAbsent(key, opened) == null) {
+					try {
+						hook.sendPlainText(text);
+					} catch (RuntimeException e) {
+						// repetitions must not be suppressed in favour of a message that never arrived
+						windows.remove(key, opened);
+						throw e;
+					}
+					return;
+				}
+				continue;
+			}
+			window.repeated.increment();
+			if (window.closed) {
+				// the window was closed while it was counted, it may or may not have been included in its summary
+				window.repeated.decrement();
+				continue;
+			}
+			suppressed.increment();
+			if (now - window.lastSeen > LAST_SEEN_RESOLUTION_NANOS) {
+				window.lastSeen = now;
+			}
+			return;
+		}
+	}
+
+	public void sendMessage(SlackMessage message) {
+		hook.sendMessage(message);
+	}
+
+	/**
+	 * @return the number of messages that were counted instead of sent
+	 */
+	public long getSuppressedCount() {
+		return suppressed.sum();
+	}
+
+	/**
+	 * @return the number of fingerprints currently tracked
+	 */
+	public int getTrackedCount() {
+		return windows.size();
+	}
+
+	/**
+	 * Sends the summaries of all open windows and stops the background thread, waiting up to 30 seconds for the
+	 * summaries to be sent.
+	 */
+	@Override
+	public void close() {
+		var summaries = new HashMap<Window, Long>();
+		windows.forEach((key, window) -> collect(summaries, window, close(key, window)));
+		sendLater(summaries);
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void sweep() {
+		var now = System.nanoTime();
+		windows.forEach((key, window) -> {
+			if (now - window.start < windowNanos) {
+				return;
+			}
+			var repeated = window.repeated.sumThenReset();
+			if (repeated > 0) {
+				window.start = now;
+				send(window.text, repeated);
+			} else {
+				// repetitions counted since the sum above
+				var late = close(key, window);
+				if (late > 0) {
+					send(window.text, late);
+				}
+			}
+		});
+	}
+
+	private void requestEviction() {
+		if (!evicting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			scheduler.execute(this::evict);
+		} catch (RejectedExecutionException e) {
+			evicting.set(false);
+		}
+	}
+
+	/**
+	 * Drops about the least recently seen tenth of the tracked fingerprints and sends their summaries, on the
+	 * background thread. The threshold is taken from a sample, so the windows are only scanned once.
+	 */
+	private void evict() {
+		try {
+			if (windows.size() >= maxEntries) {
+				evictLeastRecentlySeen();
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	private void evictLeastRecentlySeen() {
+		var sample = new long[EVICTION_SAMPLE];
+		var sampled = 0;
+		for (var window : windows.values()) {
+			if (sampled == sample.length) {
+				break;
+			}
+			sample[sampled++] = window.lastSeen;
+		}
+		if (sampled == 0) {
+			return;
+		}
+		Arrays.sort(sample, 0, sampled);
+		var threshold = sample[Math.max(0, sampled / 10 - 1)];
+		var summaries = new HashMap<Window, Long>();
+		windows.forEach((key, window) -> {
+			if (window.lastSeen - threshold <= 0) {
+				collect(summaries, window, close(key, window));
+			}
+		});
+		summaries.forEach((window, repeated) -> send(window.text, repeated));
+	}
+
+	/**
+	 * Stops counting for the window.
+	 *
+	 * @return the repetitions that still need a summary
+	 */
+	private long close(Object key, Window window) {
+		window.closed = true;
+		return windows.remove(key, window) ? window.repeated.sumThenReset() : 0;
+	}
+
+	private static void collect(Map<Window, Long> summaries, Window window, long repeated) {
+		if (repeated > 0) {
+			summaries.put(window, repeated);
+		}
+	}
+
+	private void sendLater(Map<Window, Long> summaries) {
+		if (summaries.isEmpty()) {
+			return;
+		}
+		try {
+			scheduler.execute(() -> summaries.forEach((window, repeated) -> send(window.text, repeated)));
+		} catch (RejectedExecutionException e) {
+			LOG.warn("Could not send the summaries of {} repeated slack messages, the hook has been closed",
+					summaries.size());
+		}
+	}
+
+	private void send(String text, long repeated) {
+		try {
+			hook.sendPlainText(text + " (\u00d7" + repeated + " in last " + windowText + ")");
+		} catch (RuntimeException e) {
+			LOG.warn("Could not send the summary of {} repeated slack messages", repeated, e);
+		}
+	}
+
+	private static String describe(Duration window) {
+		if (window.toMillis() % 1000 != 0) {
+			return window.toMillis() + "ms";
+		}
+		return window.toSeconds() % 60 == 0 ? window.toMinutes() + "m" : window.toSeconds() + "s";
+	}
+
+	private static class Window {
+
+		private final String text;
+
+		private final LongAdder repeated = new LongAdder();
+
+		private volatile long start;
+
+		private volatile long lastSeen;
+
+		private volatile boolean closed;
+
+		private Window(String text, long now) {
+			this.text = text;
+			this.start = now;
+			this.lastSeen = now;
+		}
+	}
+
+	public static class Builder {
+
+		private final SlackHook hook;
+
+		private Duration window = Duration.ofSeconds(60);
+
+		private int maxEntries = 10_000;
+
+		private Function<String, ?> fingerprint = Function.identity();
+
+		private Builder(SlackHook hook) {
+			this.hook = hook;
+		}
+
+		/**
+		 * How long repetitions of a message are counted before their summary is sent.
+		 */
+		public Builder window(Duration window) {
+			this.window = window;
+			return this;
+		}
+
+		/**
+		 * The number of tracked fingerprints at which the least recently seen ones are evicted.
+		 */
+		public Builder maxEntries(int maxEntries) {
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		/**
+		 * Maps a message to the key it is deduplicated by, the message itself by default.
+		 * Useful to ignore parts that change with every occurrence, like timestamps or request ids.
+		 */
+		public Builder fingerprint(Function<String, ?> fingerprint) {
+			this.fingerprint = fingerprint;
+			return this;
+		}
+
+		public DeduplicatingSlackHook build() {
+			if (window == null || window.isNegative() || window.isZero()) {
+				throw new IllegalArgumentException("Deduplication window must be positive, was " + window);
+			}
+			if (maxEntries < 1) {
+				throw new IllegalArgumentException("Deduplication needs to track at least one message, maxEntries was "
+						+ maxEntries);
+			}
+			return new DeduplicatingSlackHook(this);
+		}
+	}
+}
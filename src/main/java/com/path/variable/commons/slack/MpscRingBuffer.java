@@ -0,0 +1,86 @@
+package com.path.variable.commons.slack;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue for many producers and a single consumer that never blocks and never allocates.
+ * Every slot carries a sequence number: a producer claims a position with a compare and set on the tail, writes the
+ * element and then publishes it by advancing the sequence of the slot, the consumer takes the element once the
+ * sequence says it was published and frees the slot for the next lap by advancing the sequence again.
+ */
+final class MpscRingBuffer<E> {
+
+	private final AtomicReferenceArray<E> elements;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private volatile long head;
+
+	/**
+	 * @param capacity rounded up to the next power of two
+	 */
+	MpscRingBuffer(int capacity) {
+		int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		this.elements = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * @return false if the buffer is full
+	 */
+	boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Must only be called by the consumer.
+	 *
+	 * @return the oldest element or null if the buffer is empty
+	 */
+	E poll() {
+		long position = head;
+		int index = (int) position & mask;
+		if (sequences.get(index) != position + 1) {
+			return null;
+		}
+		E element = elements.get(index);
+		elements.lazySet(index, null);
+		sequences.set(index, position + mask + 1);
+		head = position + 1;
+		return element;
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+
+	int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+}
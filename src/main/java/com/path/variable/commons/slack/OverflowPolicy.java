@@ -0,0 +1,22 @@
+package com.path.variable.commons.slack;
+
+/**
+ * Decides what happens when a message is submitted to a full {@link AsyncSlackHook} queue.
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Evicts the oldest queued message to make room. Its future completes exceptionally.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Rejects the submitted message. Its future completes exceptionally, the caller is never blocked.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Blocks the caller until there is room in the queue.
+	 */
+	BLOCK
+}
@@ -0,0 +1,419 @@
+package com.path.variable.commons.slack;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A logback appender that forwards matching events, by default everything at ERROR, to a Slack webhook.
+ * The logging thread only checks whether an event matches and puts it into a lock-free ring buffer, it never waits
+ * for the buffer or the network. Events that do not fit into a full buffer are dropped and counted.
+ * A worker thread groups the events of a burst: after the first event it waits for the group window, then renders
+ * all events that arrived in the meantime into one {@link SlackMessage} with one section per distinct logger and
+ * message, repetitions are counted instead of repeated. The message is posted through a {@link SlackHook}, so pacing
+ * and retries follow its {@link SlackRetryPolicy}. A hook created for the webhook URL uses
+ * {@link SlackRetryPolicy#defaults()}, only the worker waits for it.
+ * Events logged by the worker itself, ex. by a failing hook, are ignored so that a broken webhook cannot feed itself.
+ * <pre>
+ * &lt;appender name="SLACK" class="com.path.variable.commons.slack.SlackAppender"&gt;
+ *     &lt;webhookUrl&gt;https://hooks.slack.com/services/...&lt;/webhookUrl&gt;
+ *     &lt;level&gt;ERROR&lt;/level&gt;
+ *     &lt;loggers&gt;com.acme.payments, com.acme.orders&lt;/loggers&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class SlackAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+	/**
+	 * Slack cuts section texts at 3000 characters.
+	 */
+	private static final int MAX_SECTION_LENGTH = 2900;
+
+	private static final int MAX_STACK_FRAMES = 8;
+
+	/**
+	 * How long an idle worker sleeps before it looks at the buffer again.
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+	private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+	                                                                .withZone(ZoneId.systemDefault());
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final LongAdder sent = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private String webhookUrl;
+
+	private SlackHook hook;
+
+	private Level level = Level.ERROR;
+
+	private List<String> loggers = List.of();
+
+	private String marker;
+
+	private String title;
+
+	private int bufferSize = 1024;
+
+	private long groupWindowMillis = 2000;
+
+	private int maxEventsPerMessage = 20;
+
+	private long stopTimeoutMillis = 10_000;
+
+	private MpscRingBuffer<ILoggingEvent> buffer;
+
+	private Thread worker;
+
+	private volatile boolean stopping;
+
+	private long reportedDrops;
+
+	public void setWebhookUrl(String webhookUrl) {
+		this.webhookUrl = webhookUrl;
+	}
+
+	/**
+	 * Sends through the hook instead of creating one for the webhook URL, ex. to use a custom transport or policy.
+	 */
+	public void setHook(SlackHook hook) {
+		this.hook = hook;
+	}
+
+	/**
+	 * The lowest level that is forwarded, ERROR by default.
+	 */
+	public void setLevel(String level) {
+		this.level = Level.toLevel(level, Level.ERROR);
+	}
+
+	/**
+	 * A comma separated list of logger names, only events of these loggers and their children are forwarded.
+	 */
+	public void setLoggers(String loggers) {
+		List<String> names = new ArrayList<>();
+		for (String name : loggers.split(",")) {
+			if (!name.isBlank()) {
+				names.add(name.trim());
+			}
+		}
+		this.loggers = List.copyOf(names);
+	}
+
+	/**
+	 * Only events with this marker are forwarded.
+	 */
+	public void setMarker(String marker) {
+		this.marker = marker;
+	}
+
+	/**
+	 * Starts every message, the name of the logger context by default.
+	 */
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * How long the worker collects further events after the first event of a burst.
+	 */
+	public void setGroupWindowMillis(long groupWindowMillis) {
+		this.groupWindowMillis = groupWindowMillis;
+	}
+
+	/**
+	 * The number of distinct events in one message, at most {@link AsyncSlackHook#MAX_BLOCKS} minus two.
+	 */
+	public void setMaxEventsPerMessage(int maxEventsPerMessage) {
+		this.maxEventsPerMessage = maxEventsPerMessage;
+	}
+
+	/**
+	 * How long stopping waits for the worker to send the events that are still buffered.
+	 */
+	public void setStopTimeoutMillis(long stopTimeoutMillis) {
+		this.stopTimeoutMillis = stopTimeoutMillis;
+	}
+
+	/**
+	 * @return the number of events that were dropped because the buffer was full
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return the number of messages Slack accepted
+	 */
+	public long getSentCount() {
+		return sent.sum();
+	}
+
+	/**
+	 * @return the number of messages that could not be delivered
+	 */
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	@Override
+	public void start() {
+		if (hook == null && (webhookUrl == null || webhookUrl.isBlank())) {
+			addError("No webhook URL set for the Slack appender named [" + name + "]");
+			return;
+		}
+		if (bufferSize < 1 || groupWindowMillis < 0 || maxEventsPerMessage < 1
+				|| maxEventsPerMessage > AsyncSlackHook.MAX_BLOCKS - 2) {
+			addError("Invalid buffer size, group window or events per message for the Slack appender named ["
+					+ name + "]");
+			return;
+		}
+		if (hook == null) {
+			// the worker may block on pacing and retries, the logging threads never do
+			hook = new SlackHook(webhookUrl, SlackTransport.shared(), SlackRetryPolicy.defaults());
+		}
+		if (title == null) {
+			title = getContext() == null ? "Application" : getContext().getName();
+		}
+		buffer = new MpscRingBuffer<>(bufferSize);
+		stopping = false;
+		worker = new Thread(this::run, "slack-appender-" + name);
+		worker.setDaemon(true);
+		worker.start();
+		super.start();
+	}
+
+	/**
+	 * Stops accepting events and waits for the worker to send the ones that are still buffered.
+	 */
+	@Override
+	public void stop() {
+		if (!isStarted()) {
+			return;
+		}
+		super.stop();
+		stopping = true;
+		LockSupport.unpark(worker);
+		try {
+			worker.join(stopTimeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (worker.isAlive()) {
+			addWarn("The Slack appender named [" + name + "] stopped before all buffered events were sent");
+		}
+	}
+
+	@Override
+	protected void append(ILoggingEvent event) {
+		if (Thread.currentThread() == worker || !matches(event)) {
+			return;
+		}
+		event.prepareForDeferredProcessing();
+		if (!buffer.offer(event)) {
+			dropped.increment();
+		}
+	}
+
+	private boolean matches(ILoggingEvent event) {
+		if (!event.getLevel().isGreaterOrEqual(level)) {
+			return false;
+		}
+		if (marker != null && (event.getMarker() == null || !event.getMarker().contains(marker))) {
+			return false;
+		}
+		if (loggers.isEmpty()) {
+			return true;
+		}
+		String loggerName = event.getLoggerName();
+		for (String logger : loggers) {
+			if (loggerName.startsWith(logger)
+					&& (loggerName.length() == logger.length() || loggerName.charAt(logger.length()) == '.')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void run() {
+		Map<String, Group> groups = new LinkedHashMap<>();
+		while (true) {
+			ILoggingEvent first = buffer.poll();
+			if (first == null) {
+				if (stopping) {
+					return;
+				}
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+				continue;
+			}
+			add(groups, first);
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupWindowMillis);
+			while (groups.size() < maxEventsPerMessage) {
+				ILoggingEvent next = buffer.poll();
+				if (next != null) {
+					add(groups, next);
+					continue;
+				}
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || stopping) {
+					break;
+				}
+				LockSupport.parkNanos(Math.min(remaining, IDLE_PARK_NANOS));
+			}
+			send(groups);
+			groups.clear();
+		}
+	}
+
+	private static void add(Map<String, Group> groups, ILoggingEvent event) {
+		String key = event.getLoggerName() + '\n' + event.getFormattedMessage();
+		Group group = groups.get(key);
+		if (group == null) {
+			groups.put(key, new Group(event));
+		} else {
+			group.count++;
+		}
+	}
+
+	private void send(Map<String, Group> groups) {
+		try {
+			hook.sendMessage(render(groups));
+			sent.increment();
+		} catch (Exception ex) {
+			failed.increment();
+			addError("Could not send " + groups.size() + " events to Slack", ex);
+		}
+	}
+
+	private SlackMessage render(Map<String, Group> groups) {
+		int events = 0;
+		for (Group group : groups.values()) {
+			events += group.count;
+		}
+		SlackMessage message = new SlackMessage();
+		message.addSection().getText().setText("*" + escape(title) + "*: " + events + (events == 1 ? " event" : " events"));
+		for (Group group : groups.values()) {
+			message.addSection().getText().setText(render(group));
+		}
+		long drops = dropped.sum();
+		if (drops > reportedDrops) {
+			message.addSection().getText().setText("_" + (drops - reportedDrops)
+					+ " events were dropped because the buffer was full_");
+			reportedDrops = drops;
+		}
+		return message;
+	}
+
+	private static String render(Group group) {
+		ILoggingEvent event = group.event;
+		StringBuilder text = new StringBuilder();
+		text.append('*').append(event.getLevel()).append("* `").append(event.getLoggerName()).append("` ")
+		    .append(TIME.format(Instant.ofEpochMilli(event.getTimeStamp())))
+		    .append(" [").append(escape(event.getThreadName())).append(']');
+		if (group.count > 1) {
+			text.append(" \u00d7").append(group.count);
+		}
+		text.append('\n');
+		if (!appendEscaped(text, event.getFormattedMessage())) {
+			return text.append('\u2026').toString();
+		}
+		IThrowableProxy throwable = event.getThrowableProxy();
+		if (throwable != null) {
+			text.append("\n```");
+			text.append(appendEscaped(text, describe(throwable)) ? "```" : "\u2026```");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Escapes the value into the section as long as it fits. The value is cut before it is escaped, so that an
+	 * entity or a surrogate pair is never split.
+	 *
+	 * @return false if the value was cut
+	 */
+	private static boolean appendEscaped(StringBuilder text, String value) {
+		if (value == null) {
+			return true;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String escaped = c == '&' ? "&amp;" : c == '<' ? "&lt;" : c == '>' ? "&gt;" : null;
+			int length = escaped != null ? escaped.length() : Character.isHighSurrogate(c) ? 2 : 1;
+			if (text.length() + length > MAX_SECTION_LENGTH) {
+				return false;
+			}
+			if (escaped != null) {
+				text.append(escaped);
+			} else {
+				text.append(c);
+				if (length == 2 && i + 1 < value.length()) {
+					text.append(value.charAt(++i));
+				}
+			}
+		}
+		return true;
+	}
+
+	private static String describe(IThrowableProxy throwable) {
+		StringBuilder text = new StringBuilder();
+		for (IThrowableProxy current = throwable; current != null; current = current.getCause()) {
+			if (current != throwable) {
+				text.append("\nCaused by: ");
+			}
+			text.append(current.getClassName());
+			if (current.getMessage() != null) {
+				text.append(": ").append(current.getMessage());
+			}
+			StackTraceElementProxy[] frames = current.getStackTraceElementProxyArray();
+			for (int i = 0; i < Math.min(frames.length, MAX_STACK_FRAMES); i++) {
+				text.append("\n\tat ").append(frames[i].getStackTraceElement());
+			}
+			if (frames.length > MAX_STACK_FRAMES) {
+				text.append("\n\t... ").append(frames.length - MAX_STACK_FRAMES).append(" more");
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Slack reads &amp;, &lt; and &gt; as control characters in mrkdwn texts.
+	 */
+	private static String escape(String text) {
+		if (text == null) {
+			return "";
+		}
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+
+	private static final class Group {
+
+		private final ILoggingEvent event;
+
+		private int count = 1;
+
+		private Group(ILoggingEvent event) {
+			this.event = event;
+		}
+	}
+}
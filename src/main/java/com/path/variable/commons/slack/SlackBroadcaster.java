@@ -0,0 +1,217 @@
+package com.path.variable.commons.slack;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static java.util.Collections.singletonMap;
+
+/**
+ * Sends one message to many webhooks at once, so that a broadcast takes about as long as the slowest webhook
+ * instead of the sum of all of them.
+ * Every webhook is posted to from its own virtual thread when the JVM supports them (Java 21), and from a platform
+ * thread otherwise. The number of concurrent posts to one host is limited, all posts share one deadline and a
+ * broadcast returns a result for every webhook once all of them finished or the deadline has passed.
+ */
+public class SlackBroadcaster implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SlackBroadcaster.class);
+
+	private final List<SlackHook> hooks;
+
+	private final Duration timeout;
+
+	private final int maxConcurrencyPerHost;
+
+	private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+	private final ExecutorService executor;
+
+	private final boolean virtualThreads;
+
+	private SlackBroadcaster(Builder builder) {
+		this.hooks = List.copyOf(builder.hooks);
+		this.timeout = builder.timeout;
+		this.maxConcurrencyPerHost = builder.maxConcurrencyPerHost;
+		var virtual = builder.virtualThreads ? newVirtualThreadExecutor() : null;
+		this.virtualThreads = virtual != null;
+		this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(runnable -> {
+			var thread = new Thread(runnable, "slack-broadcast");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public List<BroadcastResult> broadcastPlainText(String text) {
+		var payload = singletonMap("text", (Object) text);
+		return broadcast(hook -> hook.sendPayload(payload));
+	}
+
+	public List<BroadcastResult> broadcastMessage(SlackMessage message) {
+		return broadcast(hook -> hook.sendPayload(message));
+	}
+
+	public List<BroadcastResult> broadcastTemplate(SlackMessageTemplate template, Map<String, ?> values) {
+		return broadcast(hook -> hook.sendTemplate(template, values));
+	}
+
+	/**
+	 * @return true if posts run on virtual threads, false if the JVM does not support them
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Stops the threads of this broadcaster, posts that are still running are interrupted.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private List<BroadcastResult> broadcast(Consumer<SlackHook> send) {
+		var start = System.nanoTime();
+		var deadline = start + timeout.toNanos();
+		var futures = new ArrayList<Future<BroadcastResult>>(hooks.size());
+		for (var hook : hooks) {
+			futures.add(executor.submit(() -> post(hook, send, start, deadline)));
+		}
+
+		var results = new ArrayList<BroadcastResult>(hooks.size());
+		for (int i = 0; i < futures.size(); i++) {
+			var url = hooks.get(i).getUrl();
+			var future = futures.get(i);
+			try {
+				results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+			} catch (TimeoutException | CancellationException e) {
+				future.cancel(true);
+				results.add(new BroadcastResult(url, BroadcastResult.Status.TIMED_OUT, null, elapsed(start)));
+			} catch (ExecutionException e) {
+				results.add(new BroadcastResult(url, BroadcastResult.Status.FAILED, e.getCause(), elapsed(start)));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				futures.forEach(pending -> pending.cancel(true));
+				results.add(new BroadcastResult(url, BroadcastResult.Status.FAILED, e, elapsed(start)));
+			}
+		}
+		return results;
+	}
+
+	private BroadcastResult post(SlackHook hook, Consumer<SlackHook> send, long start, long deadline) {
+		var permits = hosts.computeIfAbsent(host(hook.getUrl()), host -> new Semaphore(maxConcurrencyPerHost));
+		try {
+			if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return new BroadcastResult(hook.getUrl(), BroadcastResult.Status.TIMED_OUT, null, elapsed(start));
+			}
+		} catch (InterruptedException e) {
+			return new BroadcastResult(hook.getUrl(), BroadcastResult.Status.TIMED_OUT, e, elapsed(start));
+		}
+		try {
+			send.accept(hook);
+			return new BroadcastResult(hook.getUrl(), BroadcastResult.Status.DELIVERED, null, elapsed(start));
+		} catch (RuntimeException e) {
+			LOG.debug("Could not broadcast to {}", hook.getUrl(), e);
+			return new BroadcastResult(hook.getUrl(), BroadcastResult.Status.FAILED, e, elapsed(start));
+		} finally {
+			permits.release();
+		}
+	}
+
+	private static Duration elapsed(long start) {
+		return Duration.ofNanos(System.nanoTime() - start);
+	}
+
+	private static String host(String url) {
+		try {
+			var host = URI.create(url).getHost();
+			return host != null ? host : url;
+		} catch (IllegalArgumentException e) {
+			return url;
+		}
+	}
+
+	/**
+	 * Looks the virtual thread executor up reflectively so that the library still runs on older JVMs.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOG.debug("Virtual threads are not available, broadcasting from platform threads", e);
+			return null;
+		}
+	}
+
+	public static class Builder {
+
+		private final List<SlackHook> hooks = new ArrayList<>();
+
+		private Duration timeout = Duration.ofSeconds(30);
+
+		private int maxConcurrencyPerHost = 16;
+
+		private boolean virtualThreads = true;
+
+		private Builder() {
+		}
+
+		public Builder hook(SlackHook hook) {
+			hooks.add(hook);
+			return this;
+		}
+
+		public Builder hooks(List<SlackHook> hooks) {
+			this.hooks.addAll(hooks);
+			return this;
+		}
+
+		/**
+		 * How long a broadcast waits for all webhooks, posts still running afterwards are reported as timed out.
+		 */
+		public Builder timeout(Duration timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
+		/**
+		 * The maximum number of concurrent posts to one host, Slack webhooks all share hooks.slack.com.
+		 */
+		public Builder maxConcurrencyPerHost(int maxConcurrencyPerHost) {
+			this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+			return this;
+		}
+
+		/**
+		 * Whether to use virtual threads when they are available, true by default.
+		 */
+		public Builder virtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+			return this;
+		}
+
+		public SlackBroadcaster build() {
+			return new SlackBroadcaster(this);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.path.variable.commons.slack;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what happened to the messages sent to one webhook.
+ */
+public class SlackDeliveryMetrics {
+
+	private final LongAdder sent = new LongAdder();
+
+	private final LongAdder retries = new LongAdder();
+
+	private final LongAdder rateLimited = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final LongAdder circuitOpen = new LongAdder();
+
+	void sent() {
+		sent.increment();
+	}
+
+	void retried() {
+		retries.increment();
+	}
+
+	void rateLimited() {
+		rateLimited.increment();
+	}
+
+	void dropped() {
+		dropped.increment();
+	}
+
+	void circuitOpen() {
+		circuitOpen.increment();
+		dropped.increment();
+	}
+
+	/**
+	 * @return the number of messages Slack accepted
+	 */
+	public long getSent() {
+		return sent.sum();
+	}
+
+	/**
+	 * @return the number of attempts that were repeated after a failure or a rate limit
+	 */
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	/**
+	 * @return the number of 429 responses
+	 */
+	public long getRateLimited() {
+		return rateLimited.sum();
+	}
+
+	/**
+	 * @return the number of messages that were given up on, including those dropped by the circuit breaker
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return the number of messages dropped without an attempt because the circuit breaker was open
+	 */
+	public long getCircuitOpen() {
+		return circuitOpen.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "sent=" + getSent() + ", retries=" + getRetries() + ", rateLimited=" + getRateLimited()
+				+ ", dropped=" + getDropped() + ", circuitOpen=" + getCircuitOpen();
+	}
+}
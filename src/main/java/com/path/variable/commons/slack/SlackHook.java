@@ -1,33 +1,62 @@
 package com.path.variable.commons.slack;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.path.variable.commons.slack.exceptions.MessageRejectedException;
 import com.path.variable.commons.slack.exceptions.MessagingException;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.singletonMap;
 
 /**
  * A basic abstraction of the Slack webhook API.
+ * Hooks send through a {@link SlackTransport}, by default the shared one, so that connections are pooled and reused
+ * across all hooks of an application. Sending blocks until Slack accepted the message, how messages are paced and
+ * retried is decided by the {@link SlackRetryPolicy}. A message that could not be delivered throws a
+ * {@link MessagingException}, a {@link MessageRejectedException} if Slack refused it for good.
  */
 public class SlackHook {
 	
-	private final ObjectMapper mapper;
-
 	private final String url;
 
-	private final CloseableHttpClient client;
+	private final SlackTransport transport;
+
+	private final SlackRetryPolicy policy;
+
+	private final WebhookState webhook;
 
+	/**
+	 * Sends through the shared transport with {@link SlackRetryPolicy#none()}, every message is sent once without
+	 * pacing or retries.
+	 */
 	public SlackHook(String url) {
+		this(url, SlackTransport.shared());
+	}
+
+	/**
+	 * Sends with {@link SlackRetryPolicy#none()}, see {@link #SlackHook(String)}.
+	 */
+	public SlackHook(String url, SlackTransport transport) {
+		this(url, transport, SlackRetryPolicy.none());
+	}
+
+	/**
+	 * Paces and retries messages as the policy says, ex. {@link SlackRetryPolicy#defaults()}. Note that sending then
+	 * blocks the calling thread while the message waits for its pacing slot and for retries, up to the maximum delay
+	 * of the policy. Send through an {@link AsyncSlackHook} where callers must not wait.
+	 */
+	public SlackHook(String url, SlackTransport transport, SlackRetryPolicy policy) {
 		this.url = url;
-		this.mapper = new ObjectMapper();
-		this.client = HttpClients.createDefault();
+		this.transport = transport;
+		this.policy = policy;
+		this.webhook = transport.webhook(url, policy);
 	}
 
 	public void sendPlainText(String text) {
@@ -39,20 +68,140 @@ public class SlackHook {
 		sendPayload(message);
 	}
 
-	private void sendPayload(Object payload) {
-		HttpPost post = new HttpPost();
+	/**
+	 * Renders the template with the values directly into the request body.
+	 */
+	public void sendTemplate(SlackMessageTemplate template, Map<String, ?> values) {
+		try {
+			deliver(new URI(url), SlackPayloadWriter.toEntity(template, values));
+		} catch (URISyntaxException ex) {
+			throw new MessagingException("Slack message could not be sent", ex);
+		}
+	}
+
+	/**
+	 * Sends a payload that was serialized earlier, ex. by the {@link SlackSpool}.
+	 */
+	void sendJson(byte[] json) {
+		try {
+			deliver(new URI(url), new ByteArrayEntity(json, ContentType.APPLICATION_JSON));
+		} catch (URISyntaxException ex) {
+			throw new MessagingException("Slack message could not be sent", ex);
+		}
+	}
+
+	void sendPayload(Object payload) {
 		try {
-			post.setURI(new URI(url));
-			var entity = new StringEntity(mapper.writeValueAsString(payload));
-			post.setEntity(entity);
-			post.setHeader("content-type", "application/json");
-			var response = client.execute(post);
-			response.close();
+			deliver(new URI(url), SlackPayloadWriter.toEntity(payload));
 		} catch (URISyntaxException | IOException ex) {
 			throw new MessagingException("Slack message could not be sent", ex);
 		}
 	}
 
+	/**
+	 * Sends the entity until Slack accepts it, the attempts are used up or the maximum delay has passed.
+	 */
+	private void deliver(URI uri, HttpEntity entity) {
+		var metrics = webhook.metrics();
+		var deadline = System.nanoTime() + policy.getMaxDelay().toNanos();
+		Exception failure = null;
+		for (int attempt = 1; ; attempt++) {
+			if (webhook.isOpen(System.nanoTime())) {
+				metrics.circuitOpen();
+				throw new MessagingException("Slack message was dropped, the webhook circuit breaker is open", failure);
+			}
+			var wait = webhook.reserve(System.nanoTime(), deadline);
+			if (wait == WebhookState.NO_SLOT) {
+				metrics.dropped();
+				throw new MessagingException("Slack message was dropped, it could not be sent within "
+						+ policy.getMaxDelay(), failure);
+			}
+			await(wait, deadline, failure);
+			if (!webhook.allowRequest(System.nanoTime())) {
+				metrics.circuitOpen();
+				throw new MessagingException("Slack message was dropped, the webhook circuit breaker is open", failure);
+			}
+
+			SlackResponse response = null;
+			try {
+				response = transport.post(uri, entity);
+			} catch (IOException | RuntimeException ex) {
+				webhook.onFailure(System.nanoTime());
+				failure = ex;
+			}
+			if (response != null) {
+				if (response.isSuccess()) {
+					webhook.onResponse();
+					metrics.sent();
+					return;
+				}
+				if (response.isRateLimited()) {
+					webhook.onResponse();
+					metrics.rateLimited();
+				} else if (response.isRetryable()) {
+					webhook.onFailure(System.nanoTime());
+				} else {
+					webhook.onResponse();
+					metrics.dropped();
+					throw new MessageRejectedException("Slack rejected the message with status "
+							+ response.getStatus(), response.getStatus());
+				}
+				failure = new MessagingException("Slack answered with status " + response.getStatus(), null);
+			}
+
+			if (attempt >= policy.getMaxAttempts()) {
+				metrics.dropped();
+				throw new MessagingException("Slack message was dropped after " + attempt + " attempts", failure);
+			}
+			metrics.retried();
+			if (response != null && response.isRateLimited()) {
+				var pause = response.getRetryAfterMillis() == SlackResponse.NO_RETRY_AFTER
+						? backoffNanos(attempt) : TimeUnit.MILLISECONDS.toNanos(response.getRetryAfterMillis());
+				webhook.pause(System.nanoTime(), pause);
+			} else {
+				await(backoffNanos(attempt), deadline, failure);
+			}
+		}
+	}
+
+	/**
+	 * @return the exponential backoff after the given attempt with equal jitter, half of it fixed and half random
+	 */
+	private long backoffNanos(int attempt) {
+		var initial = policy.getInitialBackoff().toNanos();
+		var ceiling = Math.min(policy.getMaxBackoff().toNanos(), initial << Math.min(attempt - 1, 30));
+		if (ceiling <= 0) {
+			return 0;
+		}
+		return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+	}
+
+	private void await(long nanos, long deadline, Exception failure) {
+		if (nanos <= 0) {
+			return;
+		}
+		if (System.nanoTime() + nanos - deadline > 0) {
+			webhook.metrics().dropped();
+			throw new MessagingException("Slack message was dropped, it could not be sent within "
+					+ policy.getMaxDelay(), failure);
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			webhook.metrics().dropped();
+			throw new MessagingException("Interrupted while waiting to send a Slack message", e);
+		}
+	}
+
+	/**
+	 * @return the delivery counters of this hook's webhook, shared with other hooks posting to the same URL with an
+	 * equal policy
+	 */
+	public SlackDeliveryMetrics getMetrics() {
+		return webhook.metrics();
+	}
+
 	public String getUrl() {
 		return url;
 	}
@@ -1,11 +1,14 @@
 package com.path.variable.commons.slack;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 import java.util.ArrayList;
 
 
 public class SlackMessage {
 
+	@JsonProperty("blocks")
 	private List<Block> blocks;
 
 	public SlackMessage() {
@@ -24,4 +27,12 @@ public class SlackMessage {
 		return block;
 	}
 
+	void addBlocks(List<Block> other) {
+		blocks.addAll(other);
+	}
+
+	List<Block> blocks() {
+		return blocks;
+	}
+
 }
@@ -0,0 +1,255 @@
+package com.path.variable.commons.slack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A Block Kit message layout that is serialized once and rendered many times.
+ * Texts may contain {name} placeholders. The JSON between them is escaped and encoded when the template is built,
+ * rendering only copies those fragments and escapes the values, so no message object tree is built per alert.
+ * Placeholders without a value are rendered as they were written. Values are not escaped for Slack's mrkdwn,
+ * a value may deliberately contain links or formatting.
+ * <pre>
+ * var template = SlackMessageTemplate.builder()
+ *         .header("{service} is down")
+ *         .section("*Status:* {status}")
+ *         .fields("*Region*\n{region}", "*Since*\n{since}")
+ *         .context("Reported by {host}")
+ *         .build();
+ * hook.sendTemplate(template, Map.of("service", "orders", ...));
+ * </pre>
+ */
+public class SlackMessageTemplate {
+
+	private final byte[][] literals;
+
+	private final String[] names;
+
+	private final byte[][] placeholders;
+
+	private SlackMessageTemplate(Builder builder) {
+		this.literals = builder.literals.toArray(new byte[0][]);
+		this.names = builder.names.toArray(new String[0]);
+		this.placeholders = new byte[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			placeholders[i] = ("{" + names[i] + "}").getBytes(UTF_8);
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the JSON payload for the given values
+	 */
+	public String render(Map<String, ?> values) {
+		var buffer = new SlackPayloadWriter.PayloadBuffer();
+		renderTo(buffer, values);
+		return new String(buffer.array(), 0, buffer.size(), UTF_8);
+	}
+
+	/**
+	 * @return the names of all placeholders in the order they first appear
+	 */
+	public Set<String> getPlaceholders() {
+		return new LinkedHashSet<>(Arrays.asList(names));
+	}
+
+	void renderTo(SlackPayloadWriter.PayloadBuffer buffer, Map<String, ?> values) {
+		buffer.appendBytes(literals[0]);
+		for (int i = 0; i < names.length; i++) {
+			var value = values.get(names[i]);
+			if (value != null || values.containsKey(names[i])) {
+				buffer.appendEscaped(String.valueOf(value));
+			} else {
+				buffer.appendBytes(placeholders[i]);
+			}
+			buffer.appendBytes(literals[i + 1]);
+		}
+	}
+
+	public static class Builder {
+
+		private final List<byte[]> literals = new ArrayList<>();
+
+		private final List<String> names = new ArrayList<>();
+
+		private SlackPayloadWriter.PayloadBuffer literal = new SlackPayloadWriter.PayloadBuffer();
+
+		private String fallbackText;
+
+		private boolean firstBlock = true;
+
+		private Builder() {
+			raw("{\"blocks\":[");
+		}
+
+		/**
+		 * The text shown in notifications, which cannot display blocks.
+		 */
+		public Builder fallbackText(String fallbackText) {
+			this.fallbackText = fallbackText;
+			return this;
+		}
+
+		/**
+		 * A large bold plain text line.
+		 */
+		public Builder header(String text) {
+			startBlock("header");
+			raw(",\"text\":");
+			textObject("plain_text", text);
+			return endBlock();
+		}
+
+		public Builder divider() {
+			startBlock("divider");
+			return endBlock();
+		}
+
+		/**
+		 * A section with formatted text.
+		 */
+		public Builder section(String mrkdwn) {
+			startBlock("section");
+			raw(",\"text\":");
+			textObject("mrkdwn", mrkdwn);
+			return endBlock();
+		}
+
+		/**
+		 * A section with formatted text and a thumbnail on its right side.
+		 */
+		public Builder section(String mrkdwn, String imageUrl, String altText) {
+			startBlock("section");
+			raw(",\"text\":");
+			textObject("mrkdwn", mrkdwn);
+			raw(",\"accessory\":{\"type\":\"image\",\"image_url\":");
+			string(imageUrl);
+			raw(",\"alt_text\":");
+			string(altText);
+			raw("}");
+			return endBlock();
+		}
+
+		/**
+		 * A section of formatted texts laid out in two columns.
+		 */
+		public Builder fields(String... mrkdwn) {
+			startBlock("section");
+			raw(",\"fields\":");
+			textArray(mrkdwn);
+			return endBlock();
+		}
+
+		/**
+		 * A line of small formatted texts.
+		 */
+		public Builder context(String... mrkdwn) {
+			startBlock("context");
+			raw(",\"elements\":");
+			textArray(mrkdwn);
+			return endBlock();
+		}
+
+		/**
+		 * A full width image.
+		 */
+		public Builder image(String imageUrl, String altText) {
+			startBlock("image");
+			raw(",\"image_url\":");
+			string(imageUrl);
+			raw(",\"alt_text\":");
+			string(altText);
+			return endBlock();
+		}
+
+		public SlackMessageTemplate build() {
+			raw("]");
+			if (fallbackText != null) {
+				raw(",\"text\":");
+				string(fallbackText);
+			}
+			raw("}");
+			literals.add(Arrays.copyOf(literal.array(), literal.size()));
+			return new SlackMessageTemplate(this);
+		}
+
+		private void startBlock(String type) {
+			raw(firstBlock ? "{\"type\":\"" : ",{\"type\":\"");
+			raw(type);
+			raw("\"");
+			firstBlock = false;
+		}
+
+		private Builder endBlock() {
+			raw("}");
+			return this;
+		}
+
+		private void textArray(String[] texts) {
+			raw("[");
+			for (int i = 0; i < texts.length; i++) {
+				raw(i == 0 ? "" : ",");
+				textObject("mrkdwn", texts[i]);
+			}
+			raw("]");
+		}
+
+		private void textObject(String type, String text) {
+			raw("{\"type\":\"" + type + "\",\"text\":");
+			string(text);
+			raw("}");
+		}
+
+		/**
+		 * Appends a JSON string, splitting it at every placeholder.
+		 */
+		private void string(String text) {
+			raw("\"");
+			int start = 0;
+			int open = text.indexOf('{');
+			while (open >= 0) {
+				int close = placeholderEnd(text, open);
+				if (close < 0) {
+					open = text.indexOf('{', open + 1);
+					continue;
+				}
+				literal.appendEscaped(text.substring(start, open));
+				literals.add(Arrays.copyOf(literal.array(), literal.size()));
+				literal = new SlackPayloadWriter.PayloadBuffer();
+				names.add(text.substring(open + 1, close));
+				start = close + 1;
+				open = text.indexOf('{', start);
+			}
+			literal.appendEscaped(text.substring(start));
+			raw("\"");
+		}
+
+		private void raw(String json) {
+			literal.appendBytes(json.getBytes(UTF_8));
+		}
+
+		/**
+		 * @return the index of the closing brace or -1 if the brace does not open a placeholder
+		 */
+		private static int placeholderEnd(String text, int open) {
+			int i = open + 1;
+			while (i < text.length() && isNameChar(text.charAt(i))) {
+				i++;
+			}
+			return i > open + 1 && i < text.length() && text.charAt(i) == '}' ? i : -1;
+		}
+
+		private static boolean isNameChar(char c) {
+			return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-';
+		}
+	}
+}
@@ -0,0 +1,313 @@
+package com.path.variable.commons.slack;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes webhook payloads straight to UTF-8 JSON bytes.
+ * Slack messages and plain text payloads are written field by field with a streaming generator instead of going
+ * through reflection, into buffers that are reused by the calling thread. Only the encoded bytes are copied out, so
+ * an entity owns its body and stays valid after the thread serializes the next payload. No intermediate string is
+ * built. The output is byte for byte what
+ * {@link ObjectMapper#writeValueAsString(Object)} produced before.
+ * Other payloads fall back to a shared {@link ObjectWriter}.
+ */
+final class SlackPayloadWriter {
+
+	/**
+	 * Buffers that grew beyond this size for an unusually large message are not kept for the next one.
+	 */
+	private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final ObjectWriter WRITER = MAPPER.writer();
+
+	private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+	private static final ThreadLocal<PayloadBuffer> BUFFERS = ThreadLocal.withInitial(PayloadBuffer::new);
+
+	private SlackPayloadWriter() {
+	}
+
+	static ByteArrayEntity toEntity(Object payload) throws IOException {
+		return new ByteArrayEntity(toBytes(payload), ContentType.APPLICATION_JSON);
+	}
+
+	static ByteArrayEntity toEntity(SlackMessageTemplate template, Map<String, ?> values) {
+		return new ByteArrayEntity(toBytes(template, values), ContentType.APPLICATION_JSON);
+	}
+
+	static byte[] toBytes(Object payload) throws IOException {
+		var buffer = buffer();
+		write(payload, buffer);
+		buffer.encode();
+		return Arrays.copyOf(buffer.array(), buffer.size());
+	}
+
+	static byte[] toBytes(SlackMessageTemplate template, Map<String, ?> values) {
+		var buffer = buffer();
+		template.renderTo(buffer, values);
+		return Arrays.copyOf(buffer.array(), buffer.size());
+	}
+
+	private static PayloadBuffer buffer() {
+		var buffer = BUFFERS.get();
+		if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+			buffer = new PayloadBuffer();
+			BUFFERS.set(buffer);
+		}
+		buffer.reset();
+		return buffer;
+	}
+
+	private static void write(Object payload, Writer out) throws IOException {
+		try (var generator = FACTORY.createGenerator(out)) {
+			if (payload instanceof SlackMessage) {
+				writeMessage(generator, (SlackMessage) payload);
+			} else if (isPlainText(payload)) {
+				generator.writeStartObject();
+				generator.writeStringField("text", (String) ((Map<?, ?>) payload).get("text"));
+				generator.writeEndObject();
+			} else {
+				WRITER.writeValue(generator, payload);
+			}
+		}
+	}
+
+	private static boolean isPlainText(Object payload) {
+		if (!(payload instanceof Map)) {
+			return false;
+		}
+		var map = (Map<?, ?>) payload;
+		return map.size() == 1 && map.get("text") instanceof String;
+	}
+
+	private static void writeMessage(JsonGenerator generator, SlackMessage message) throws IOException {
+		generator.writeStartObject();
+		writeBlocks(generator, message.blocks());
+		generator.writeEndObject();
+	}
+
+	private static void writeBlocks(JsonGenerator generator, List<Block> blocks) throws IOException {
+		if (blocks == null) {
+			generator.writeNullField("blocks");
+			return;
+		}
+		generator.writeArrayFieldStart("blocks");
+		for (var block : blocks) {
+			writeBlock(generator, block);
+		}
+		generator.writeEndArray();
+	}
+
+	private static void writeBlock(JsonGenerator generator, Block block) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", block.getType().name());
+		// reflection could not serialize dividers at all since their getText() throws, they are written without text
+		if (block.getType() == BlockType.TEXT) {
+			generator.writeFieldName("text");
+			writeText(generator, block.getText());
+		}
+		generator.writeEndObject();
+	}
+
+	private static void writeText(JsonGenerator generator, Text text) throws IOException {
+		if (text == null) {
+			generator.writeNull();
+			return;
+		}
+		generator.writeStartObject();
+		generator.writeStringField("text", text.getText());
+		generator.writeFieldName("accessory");
+		writeAccessory(generator, text.getAccessory());
+		generator.writeEndObject();
+	}
+
+	private static void writeAccessory(JsonGenerator generator, Accessory accessory) throws IOException {
+		if (accessory == null) {
+			generator.writeNull();
+			return;
+		}
+		generator.writeStartObject();
+		generator.writeStringField("type", accessory.getType());
+		generator.writeStringField("image_url", accessory.getImageUrl());
+		generator.writeStringField("alt_text", accessory.getAltText());
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Collects the generated characters and encodes them to UTF-8 in a second array that the payload is copied from.
+	 * The characters are encoded by hand because the byte based generator escapes characters outside the basic
+	 * plane, which the string based output never did. Templates render straight into the byte array.
+	 */
+	static final class PayloadBuffer extends Writer {
+
+		private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+		private char[] chars = new char[1024];
+
+		private int charCount;
+
+		private byte[] bytes = new byte[1024];
+
+		private int byteCount;
+
+		private int capacity() {
+			return Math.max(chars.length, bytes.length);
+		}
+
+		private void reset() {
+			charCount = 0;
+			byteCount = 0;
+		}
+
+		@Override
+		public void write(char[] source, int offset, int length) {
+			ensureChars(length);
+			System.arraycopy(source, offset, chars, charCount, length);
+			charCount += length;
+		}
+
+		@Override
+		public void write(String source, int offset, int length) {
+			ensureChars(length);
+			source.getChars(offset, offset + length, chars, charCount);
+			charCount += length;
+		}
+
+		@Override
+		public void write(int c) {
+			ensureChars(1);
+			chars[charCount++] = (char) c;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		/**
+		 * Appends bytes that are already valid JSON.
+		 */
+		void appendBytes(byte[] source) {
+			ensureBytes(source.length);
+			System.arraycopy(source, 0, bytes, byteCount, source.length);
+			byteCount += source.length;
+		}
+
+		/**
+		 * Appends the value as the content of a JSON string, escaping quotes, backslashes and control characters.
+		 */
+		void appendEscaped(String value) {
+			// a control character takes 6 bytes escaped, no character takes more than 3 bytes otherwise
+			ensureBytes(value.length() * 6);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\') {
+					bytes[byteCount++] = '\\';
+					bytes[byteCount++] = (byte) c;
+				} else if (c < 0x20) {
+					appendControl(c);
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					appendCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+				} else {
+					appendChar(c);
+				}
+			}
+		}
+
+		byte[] array() {
+			return bytes;
+		}
+
+		int size() {
+			return byteCount;
+		}
+
+		/**
+		 * Encodes the characters like {@link String#getBytes}, unpaired surrogates become '?'.
+		 */
+		private void encode() {
+			ensureBytes(charCount * 3);
+			for (int i = 0; i < charCount; i++) {
+				char c = chars[i];
+				if (Character.isHighSurrogate(c) && i + 1 < charCount && Character.isLowSurrogate(chars[i + 1])) {
+					appendCodePoint(Character.toCodePoint(c, chars[++i]));
+				} else {
+					appendChar(c);
+				}
+			}
+		}
+
+		private void appendChar(char c) {
+			if (c < 0x80) {
+				bytes[byteCount++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[byteCount++] = (byte) (0xc0 | (c >> 6));
+				bytes[byteCount++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				bytes[byteCount++] = '?';
+			} else {
+				bytes[byteCount++] = (byte) (0xe0 | (c >> 12));
+				bytes[byteCount++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				bytes[byteCount++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+
+		private void appendCodePoint(int codePoint) {
+			bytes[byteCount++] = (byte) (0xf0 | (codePoint >> 18));
+			bytes[byteCount++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+			bytes[byteCount++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+			bytes[byteCount++] = (byte) (0x80 | (codePoint & 0x3f));
+		}
+
+		private void appendControl(char c) {
+			bytes[byteCount++] = '\\';
+			switch (c) {
+				case '\n':
+					bytes[byteCount++] = 'n';
+					break;
+				case '\r':
+					bytes[byteCount++] = 'r';
+					break;
+				case '\t':
+					bytes[byteCount++] = 't';
+					break;
+				default:
+					bytes[byteCount++] = 'u';
+					bytes[byteCount++] = '0';
+					bytes[byteCount++] = '0';
+					bytes[byteCount++] = HEX[c >> 4];
+					bytes[byteCount++] = HEX[c & 0xf];
+			}
+		}
+
+		private void ensureChars(int additional) {
+			if (charCount + additional > chars.length) {
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + additional));
+			}
+		}
+
+		private void ensureBytes(int additional) {
+			if (byteCount + additional > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + additional));
+			}
+		}
+	}
+}
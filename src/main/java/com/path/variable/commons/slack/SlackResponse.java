@@ -0,0 +1,58 @@
+package com.path.variable.commons.slack;
+
+/**
+ * The parts of a webhook response that decide whether a message has to be sent again.
+ */
+final class SlackResponse {
+
+	static final long NO_RETRY_AFTER = -1;
+
+	private final int status;
+
+	private final long retryAfterMillis;
+
+	SlackResponse(int status, long retryAfterMillis) {
+		this.status = status;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the delay requested by the Retry-After header or {@link #NO_RETRY_AFTER} if there was none
+	 */
+	long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+
+	boolean isSuccess() {
+		return status >= 200 && status < 300;
+	}
+
+	boolean isRateLimited() {
+		return status == 429;
+	}
+
+	/**
+	 * @return true for responses that can succeed when sent again, rate limits and server errors
+	 */
+	boolean isRetryable() {
+		return isRateLimited() || status >= 500;
+	}
+
+	/**
+	 * Parses a Retry-After header given in seconds. HTTP dates are not used by Slack and are ignored.
+	 */
+	static long parseRetryAfter(String header) {
+		if (header == null) {
+			return NO_RETRY_AFTER;
+		}
+		try {
+			return Math.max(0, Long.parseLong(header.trim()) * 1000);
+		} catch (NumberFormatException e) {
+			return NO_RETRY_AFTER;
+		}
+	}
+}
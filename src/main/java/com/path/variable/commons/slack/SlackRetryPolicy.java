@@ -0,0 +1,216 @@
+package com.path.variable.commons.slack;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Decides how a {@link SlackHook} paces its messages and how it retries them.
+ * Messages to one webhook are paced by a token bucket, Slack allows about one message per second per webhook with
+ * short bursts. A 429 response pauses the webhook for the time given in its Retry-After header, server errors and
+ * connection failures are retried with jittered exponential backoff. Consecutive failures open a circuit breaker that
+ * drops messages without calling Slack until the open duration has passed and a trial message succeeds.
+ * Pacing and the circuit breaker belong to the webhook URL and the policy, hooks that share a URL, a transport and
+ * an equal policy share them.
+ */
+public class SlackRetryPolicy {
+
+	private static final SlackRetryPolicy DEFAULTS = builder().build();
+
+	private static final SlackRetryPolicy NONE = builder().maxAttempts(1)
+	                                                      .messagesPerSecond(0)
+	                                                      .failureThreshold(0)
+	                                                      .build();
+
+	private final int maxAttempts;
+
+	private final Duration initialBackoff;
+
+	private final Duration maxBackoff;
+
+	private final Duration maxDelay;
+
+	private final double messagesPerSecond;
+
+	private final int burst;
+
+	private final int failureThreshold;
+
+	private final Duration openDuration;
+
+	private SlackRetryPolicy(Builder builder) {
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoff = builder.initialBackoff;
+		this.maxBackoff = builder.maxBackoff;
+		this.maxDelay = builder.maxDelay;
+		this.messagesPerSecond = builder.messagesPerSecond;
+		this.burst = builder.burst;
+		this.failureThreshold = builder.failureThreshold;
+		this.openDuration = builder.openDuration;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the recommended policy for hooks that may block: 5 attempts, 1 message per second with bursts of 3 and
+	 * a circuit breaker that opens for 30 seconds after 5 consecutive failures
+	 */
+	public static SlackRetryPolicy defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * @return a policy that sends every message once, without pacing and without a circuit breaker
+	 */
+	public static SlackRetryPolicy none() {
+		return NONE;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public Duration getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	public Duration getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public Duration getMaxDelay() {
+		return maxDelay;
+	}
+
+	public double getMessagesPerSecond() {
+		return messagesPerSecond;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	public Duration getOpenDuration() {
+		return openDuration;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		var that = (SlackRetryPolicy) o;
+		return maxAttempts == that.maxAttempts
+				&& Double.compare(messagesPerSecond, that.messagesPerSecond) == 0
+				&& burst == that.burst
+				&& failureThreshold == that.failureThreshold
+				&& initialBackoff.equals(that.initialBackoff)
+				&& maxBackoff.equals(that.maxBackoff)
+				&& maxDelay.equals(that.maxDelay)
+				&& openDuration.equals(that.openDuration);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(maxAttempts, initialBackoff, maxBackoff, maxDelay, messagesPerSecond, burst,
+				failureThreshold, openDuration);
+	}
+
+	public static class Builder {
+
+		private int maxAttempts = 5;
+
+		private Duration initialBackoff = Duration.ofSeconds(1);
+
+		private Duration maxBackoff = Duration.ofSeconds(30);
+
+		private Duration maxDelay = Duration.ofSeconds(60);
+
+		private double messagesPerSecond = 1;
+
+		private int burst = 3;
+
+		private int failureThreshold = 5;
+
+		private Duration openDuration = Duration.ofSeconds(30);
+
+		private Builder() {
+		}
+
+		/**
+		 * The number of times a message is sent before it is dropped, including the first one.
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * The upper bound of the first backoff, every further retry doubles it up to the maximum backoff.
+		 */
+		public Builder initialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+			return this;
+		}
+
+		public Builder maxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+			return this;
+		}
+
+		/**
+		 * The longest a message may wait for pacing, rate limits and retries before it is dropped.
+		 */
+		public Builder maxDelay(Duration maxDelay) {
+			this.maxDelay = maxDelay;
+			return this;
+		}
+
+		/**
+		 * The sustained rate of messages per webhook, 0 disables pacing.
+		 */
+		public Builder messagesPerSecond(double messagesPerSecond) {
+			this.messagesPerSecond = messagesPerSecond;
+			return this;
+		}
+
+		/**
+		 * The number of messages that can be sent at once after the webhook was idle.
+		 */
+		public Builder burst(int burst) {
+			this.burst = burst;
+			return this;
+		}
+
+		/**
+		 * The number of consecutive failed attempts that opens the circuit breaker, 0 disables it.
+		 */
+		public Builder failureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+			return this;
+		}
+
+		/**
+		 * How long an open circuit breaker drops messages before it lets a trial message through.
+		 */
+		public Builder openDuration(Duration openDuration) {
+			this.openDuration = openDuration;
+			return this;
+		}
+
+		public SlackRetryPolicy build() {
+			if (maxAttempts < 1 || burst < 1 || messagesPerSecond < 0 || failureThreshold < 0) {
+				throw new IllegalArgumentException("Invalid Slack retry policy");
+			}
+			return new SlackRetryPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,565 @@
+package com.path.variable.commons.slack;
+
+import com.path.variable.commons.slack.exceptions.MessageRejectedException;
+import com.path.variable.commons.slack.exceptions.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Collections.singletonMap;
+
+/**
+ * A write-ahead spool in front of a {@link SlackHook} that keeps messages on disk until Slack accepted them.
+ * Callers only append the serialized message to a memory mapped segment file and return, a background thread sends
+ * the messages in order and retries the oldest one until delivery recovers. Messages Slack rejects for good are
+ * skipped. Written segments are forced to disk in batches, delivered segments are deleted.
+ * Forcing, creating and deleting segment files is left to a flush thread, which also prepares the next segment
+ * ahead of time, so a caller only copies into the mapped buffer. Only if the next segment is not ready yet when the
+ * current one is full, ex. during a burst larger than a segment, the caller creates it.
+ * The read position is kept in a checkpoint file, after a crash or a restart the spool continues with the first
+ * message that was not confirmed, so a message may be sent twice but is not lost. Records torn by a crash are
+ * detected by their checksum and discarded.
+ * The spool is capped at a number of segments, when it is full the {@link OverflowPolicy} decides whether the oldest
+ * segment or the new message is dropped.
+ */
+public class SlackSpool implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SlackSpool.class);
+
+	private static final String CHECKPOINT = "slack.checkpoint";
+
+	private final SlackHook hook;
+
+	private final Path directory;
+
+	private final int segmentSize;
+
+	private final int maxSegments;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final long retryNanos;
+
+	private final TreeMap<Long, SpoolSegment> segments = new TreeMap<>();
+
+	private final FileChannel checkpointChannel;
+
+	private final MappedByteBuffer checkpoint;
+
+	private final CRC32 checkpointCrc = new CRC32();
+
+	private final LongAdder appended = new LongAdder();
+
+	private final LongAdder delivered = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final Thread sender;
+
+	private final ScheduledExecutorService flusher;
+
+	private SpoolSegment writeSegment;
+
+	/**
+	 * The segment after the write segment, created ahead of time by the flush thread.
+	 */
+	private SpoolSegment nextSegment;
+
+	/**
+	 * Full segments that were not forced to disk since they were written.
+	 */
+	private List<SpoolSegment> unforced = new ArrayList<>();
+
+	private int writeOffset;
+
+	private boolean dirty;
+
+	private long readIndex;
+
+	private int readOffset;
+
+	private volatile boolean closed;
+
+	private SlackSpool(Builder builder) throws IOException {
+		this.hook = builder.hook;
+		this.directory = builder.directory;
+		this.segmentSize = builder.segmentSize;
+		this.maxSegments = builder.maxSegments;
+		this.overflowPolicy = builder.overflowPolicy;
+		this.retryNanos = builder.retryInterval.toNanos();
+
+		Files.createDirectories(directory);
+		this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT), CREATE, READ, WRITE);
+		this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, 16);
+		recover();
+
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			var thread = new Thread(runnable, "slack-spool-flush-" + directory.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		var forceNanos = builder.forceInterval.toNanos();
+		flusher.scheduleWithFixedDelay(this::force, forceNanos, forceNanos, TimeUnit.NANOSECONDS);
+		flusher.execute(this::prepareNextSegment);
+
+		// started last, the sender hands delivered segments to the flush thread
+		this.sender = new Thread(this::run, "slack-spool-" + directory.getFileName());
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	public static Builder builder(SlackHook hook, Path directory) {
+		return new Builder(hook, directory);
+	}
+
+	public void sendPlainText(String text) {
+		append(toBytes(singletonMap("text", (Object) text)));
+	}
+
+	public void sendMessage(SlackMessage message) {
+		append(toBytes(message));
+	}
+
+	public void sendTemplate(SlackMessageTemplate template, Map<String, ?> values) {
+		append(SlackPayloadWriter.toBytes(template, values));
+	}
+
+	/**
+	 * @return the number of messages written to the spool by this instance
+	 */
+	public long getAppendedCount() {
+		return appended.sum();
+	}
+
+	/**
+	 * @return the number of messages Slack accepted
+	 */
+	public long getDeliveredCount() {
+		return delivered.sum();
+	}
+
+	/**
+	 * @return the number of messages Slack refused for good, they are not retried
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+	 * @return the number of messages dropped because the spool was full
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Stops the sender, forces everything to disk and closes the files.
+	 * Messages that were not delivered yet are sent when the spool is opened again.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		// aborts waiting for a retry, the message stays in the spool
+		sender.interrupt();
+		try {
+			sender.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// lets the flush thread finish deleting segments
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			force();
+			for (var segment : segments.values()) {
+				closeQuietly(segment);
+			}
+			segments.clear();
+			if (nextSegment != null) {
+				discard(nextSegment);
+				nextSegment = null;
+			}
+			try {
+				checkpointChannel.close();
+			} catch (IOException e) {
+				LOG.warn("Could not close the slack spool checkpoint", e);
+			}
+		}
+	}
+
+	private void append(byte[] payload) {
+		if ((long) SpoolSegment.HEADER + payload.length > segmentSize) {
+			throw new IllegalArgumentException("Slack message of " + payload.length
+					+ " bytes does not fit into a spool segment of " + segmentSize + " bytes");
+		}
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("Slack spool has been closed");
+			}
+			if (!writeSegment.fits(writeOffset, payload.length) && !rotate()) {
+				dropped.increment();
+				return;
+			}
+			writeOffset = writeSegment.write(writeOffset, payload);
+			dirty = true;
+		}
+		appended.increment();
+		LockSupport.unpark(sender);
+	}
+
+	/**
+	 * Starts a new segment, dropping the oldest one if the spool is full and the overflow policy allows it.
+	 * The full segment is forced and the dropped one deleted by the flush thread.
+	 *
+	 * @return false if the message has to be dropped instead
+	 */
+	private boolean rotate() {
+		if (segments.size() >= maxSegments) {
+			if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+				return false;
+			}
+			var oldest = segments.pollFirstEntry().getValue();
+			dropped.add(oldest.count(oldest.index() == readIndex ? readOffset : 0));
+			inBackground(() -> discard(oldest));
+		}
+		var next = nextSegment;
+		if (next == null) {
+			try {
+				next = SpoolSegment.open(directory, writeSegment.index() + 1, segmentSize);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not create a slack spool segment", e);
+			}
+		}
+		unforced.add(writeSegment);
+		writeSegment = next;
+		nextSegment = null;
+		segments.put(writeSegment.index(), writeSegment);
+		writeOffset = 0;
+		inBackground(this::prepareNextSegment);
+		return true;
+	}
+
+	/**
+	 * Creates the segment that follows the write segment, so that the next rotation does not wait for the file.
+	 */
+	private void prepareNextSegment() {
+		long index;
+		synchronized (this) {
+			if (closed || nextSegment != null) {
+				return;
+			}
+			index = writeSegment.index() + 1;
+		}
+		SpoolSegment segment;
+		try {
+			segment = SpoolSegment.open(directory, index, segmentSize);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Could not create slack spool segment {}", index, e);
+			return;
+		}
+		synchronized (this) {
+			if (!closed && nextSegment == null && writeSegment.index() + 1 == index) {
+				nextSegment = segment;
+				return;
+			}
+		}
+		// a caller created the segment itself in the meantime, the file is in use and must not be deleted
+		closeQuietly(segment);
+	}
+
+	private void run() {
+		while (!closed) {
+			var record = next();
+			if (record == null) {
+				LockSupport.parkNanos(this, retryNanos);
+				continue;
+			}
+			if (deliver(record)) {
+				synchronized (this) {
+					// unless the segment was dropped while the record was sent
+					if (segments.containsKey(readIndex)) {
+						readOffset += SpoolSegment.HEADER + record.length;
+						writeCheckpoint();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends the record until Slack accepts or rejects it.
+	 *
+	 * @return false if the spool was closed before that
+	 */
+	private boolean deliver(byte[] record) {
+		while (true) {
+			try {
+				hook.sendJson(record);
+				delivered.increment();
+				return true;
+			} catch (MessageRejectedException e) {
+				LOG.warn("Slack rejected a spooled message with status {}, skipping it", e.getStatus());
+				rejected.increment();
+				return true;
+			} catch (MessagingException e) {
+				LOG.debug("Could not deliver a spooled slack message, retrying", e);
+			}
+			LockSupport.parkNanos(this, retryNanos);
+			if (closed) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * @return the next record to send or null if every record was sent
+	 */
+	private synchronized byte[] next() {
+		while (true) {
+			var segment = segments.get(readIndex);
+			if (segment == null) {
+				// the segment was dropped because the spool was full
+				readIndex = segments.firstKey();
+				readOffset = 0;
+				continue;
+			}
+			if (segment == writeSegment && readOffset >= writeOffset) {
+				return null;
+			}
+			var record = segment.read(readOffset);
+			if (record != null) {
+				return record;
+			}
+			if (segment == writeSegment) {
+				return null;
+			}
+			segments.remove(readIndex);
+			inBackground(() -> discard(segment));
+			readIndex = segments.firstKey();
+			readOffset = 0;
+			writeCheckpoint();
+		}
+	}
+
+	private void force() {
+		SpoolSegment segment;
+		List<SpoolSegment> full;
+		synchronized (this) {
+			if (!dirty && unforced.isEmpty()) {
+				return;
+			}
+			dirty = false;
+			segment = writeSegment;
+			full = unforced;
+			unforced = new ArrayList<>();
+		}
+		try {
+			for (var written : full) {
+				written.force();
+			}
+			segment.force();
+			checkpoint.force();
+		} catch (RuntimeException e) {
+			LOG.warn("Could not force the slack spool to disk", e);
+		}
+	}
+
+	/**
+	 * Opens the existing segments, finds the end of the last one and the read position from the checkpoint.
+	 */
+	private void recover() throws IOException {
+		try (var files = Files.list(directory)) {
+			for (var file : (Iterable<Path>) files::iterator) {
+				var index = SpoolSegment.indexOf(file);
+				if (index >= 0) {
+					segments.put(index, SpoolSegment.open(directory, index, segmentSize));
+				}
+			}
+		}
+		if (segments.isEmpty()) {
+			segments.put(0L, SpoolSegment.open(directory, 0, segmentSize));
+		}
+		writeSegment = segments.lastEntry().getValue();
+		writeOffset = writeSegment.recover();
+
+		readIndex = segments.firstKey();
+		readOffset = 0;
+		var savedIndex = checkpoint.getLong(0);
+		var savedOffset = checkpoint.getInt(8);
+		if (checkpointCrc(savedIndex, savedOffset) == checkpoint.getInt(12) && segments.containsKey(savedIndex)) {
+			readIndex = savedIndex;
+			readOffset = savedIndex == writeSegment.index() ? Math.min(savedOffset, writeOffset) : savedOffset;
+		}
+		while (segments.firstKey() < readIndex) {
+			discard(segments.pollFirstEntry().getValue());
+		}
+		if (segments.size() > 1 || writeOffset > readOffset) {
+			LOG.info("Recovered {} slack spool segments, resending from segment {} at {}", segments.size(),
+					readIndex, readOffset);
+		}
+	}
+
+	private void writeCheckpoint() {
+		checkpoint.putLong(0, readIndex);
+		checkpoint.putInt(8, readOffset);
+		checkpoint.putInt(12, checkpointCrc(readIndex, readOffset));
+		dirty = true;
+	}
+
+	private int checkpointCrc(long index, int offset) {
+		checkpointCrc.reset();
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			checkpointCrc.update((int) (index >>> shift));
+		}
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			checkpointCrc.update(offset >>> shift);
+		}
+		return (int) checkpointCrc.getValue();
+	}
+
+	private static byte[] toBytes(Object payload) {
+		try {
+			return SlackPayloadWriter.toBytes(payload);
+		} catch (IOException e) {
+			throw new MessagingException("Slack message could not be serialized", e);
+		}
+	}
+
+	/**
+	 * Runs a file operation on the flush thread, or right away once the spool is closing.
+	 */
+	private void inBackground(Runnable task) {
+		try {
+			flusher.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.run();
+		}
+	}
+
+	private static void discard(SpoolSegment segment) {
+		closeQuietly(segment);
+		delete(segment);
+	}
+
+	private static void closeQuietly(SpoolSegment segment) {
+		try {
+			segment.close();
+		} catch (IOException e) {
+			LOG.warn("Could not close slack spool segment {}", segment.index(), e);
+		}
+	}
+
+	private static void delete(SpoolSegment segment) {
+		try {
+			segment.delete();
+		} catch (IOException e) {
+			LOG.warn("Could not delete slack spool segment {}", segment.index(), e);
+		}
+	}
+
+	public static class Builder {
+
+		private final SlackHook hook;
+
+		private final Path directory;
+
+		private int segmentSize = 4 * 1024 * 1024;
+
+		private int maxSegments = 16;
+
+		private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+		private Duration forceInterval = Duration.ofMillis(200);
+
+		private Duration retryInterval = Duration.ofSeconds(5);
+
+		private Builder(SlackHook hook, Path directory) {
+			this.hook = hook;
+			this.directory = directory;
+		}
+
+		/**
+		 * The size of one segment file, which is also the maximum size of a message.
+		 */
+		public Builder segmentSize(int segmentSize) {
+			this.segmentSize = segmentSize;
+			return this;
+		}
+
+		/**
+		 * The maximum number of segment files, at least 2.
+		 */
+		public Builder maxSegments(int maxSegments) {
+			this.maxSegments = maxSegments;
+			return this;
+		}
+
+		/**
+		 * What to drop when the spool is full, {@link OverflowPolicy#BLOCK} is not supported.
+		 */
+		public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+			this.overflowPolicy = overflowPolicy;
+			return this;
+		}
+
+		/**
+		 * How often appended messages are forced to disk. Messages appended since the last force survive a crash of
+		 * the JVM but not of the machine.
+		 */
+		public Builder forceInterval(Duration forceInterval) {
+			this.forceInterval = forceInterval;
+			return this;
+		}
+
+		/**
+		 * How long the sender waits before it sends a message that failed again.
+		 */
+		public Builder retryInterval(Duration retryInterval) {
+			this.retryInterval = retryInterval;
+			return this;
+		}
+
+		/**
+		 * Opens the spool and starts sending the messages left in it.
+		 *
+		 * @throws IOException if the spool directory cannot be read or written
+		 */
+		public SlackSpool build() throws IOException {
+			if (maxSegments < 2 || segmentSize <= SpoolSegment.HEADER || overflowPolicy == OverflowPolicy.BLOCK) {
+				throw new IllegalArgumentException("Invalid slack spool configuration");
+			}
+			return new SlackSpool(this);
+		}
+	}
+}
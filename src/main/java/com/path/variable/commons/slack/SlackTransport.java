@@ -0,0 +1,212 @@
+package com.path.variable.commons.slack;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pooled keep-alive HTTP client that any number of {@link SlackHook}s can share.
+ * Response bodies are always consumed so that connections go back to the pool instead of being discarded.
+ * Hooks created without a transport use {@link #shared()}, which lives as long as the JVM.
+ * Transports built by the caller are owned by the caller and have to be closed by it.
+ */
+public class SlackTransport implements AutoCloseable {
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	private final CloseableHttpClient client;
+
+	private final Map<WebhookKey, WebhookState> webhooks = new ConcurrentHashMap<>();
+
+	private SlackTransport(Builder builder) {
+		this.connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(builder.maxConnections);
+		connectionManager.setDefaultMaxPerRoute(builder.maxConnectionsPerRoute);
+		connectionManager.setValidateAfterInactivity((int) builder.validateAfterInactivity.toMillis());
+		var requestConfig = RequestConfig.custom()
+				.setConnectTimeout((int) builder.connectTimeout.toMillis())
+				.setSocketTimeout((int) builder.readTimeout.toMillis())
+				.setConnectionRequestTimeout((int) builder.poolTimeout.toMillis())
+				.build();
+		this.client = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.evictExpiredConnections()
+				.evictIdleConnections(builder.maxIdleTime.toMillis(), TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the transport used by hooks that were not given one explicitly
+	 */
+	public static SlackTransport shared() {
+		return SharedHolder.SHARED;
+	}
+
+	/**
+	 * Posts the entity. The response body is consumed so the connection can be reused.
+	 */
+	SlackResponse post(URI uri, HttpEntity entity) throws IOException {
+		var post = new HttpPost(uri);
+		post.setEntity(entity);
+		try (var response = client.execute(post)) {
+			EntityUtils.consume(response.getEntity());
+			var retryAfter = response.getFirstHeader("Retry-After");
+			return new SlackResponse(response.getStatusLine().getStatusCode(),
+					SlackResponse.parseRetryAfter(retryAfter == null ? null : retryAfter.getValue()));
+		}
+	}
+
+	/**
+	 * @return the pacing and circuit breaker state of the webhook, shared by all hooks posting to it through this
+	 * transport with an equal policy
+	 */
+	WebhookState webhook(String url, SlackRetryPolicy policy) {
+		return webhooks.computeIfAbsent(new WebhookKey(url, policy), key -> new WebhookState(policy));
+	}
+
+	/**
+	 * @return a description of the leased, idle and awaited connections of the pool
+	 */
+	public String getPoolStats() {
+		return connectionManager.getTotalStats().toString();
+	}
+
+	/**
+	 * Closes the client and every pooled connection. Closing the shared transport is not allowed.
+	 */
+	@Override
+	public void close() {
+		if (this == SharedHolder.SHARED) {
+			throw new IllegalStateException("The shared Slack transport cannot be closed");
+		}
+		try {
+			client.close();
+		} catch (IOException e) {
+			connectionManager.shutdown();
+		}
+	}
+
+	private static final class SharedHolder {
+
+		private static final SlackTransport SHARED = builder().build();
+	}
+
+	private static final class WebhookKey {
+
+		private final String url;
+
+		private final SlackRetryPolicy policy;
+
+		private WebhookKey(String url, SlackRetryPolicy policy) {
+			this.url = url;
+			this.policy = policy;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof WebhookKey)) {
+				return false;
+			}
+			var that = (WebhookKey) o;
+			return url.equals(that.url) && policy.equals(that.policy);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * url.hashCode() + policy.hashCode();
+		}
+	}
+
+	public static class Builder {
+
+		private int maxConnections = 50;
+
+		private int maxConnectionsPerRoute = 20;
+
+		private Duration connectTimeout = Duration.ofSeconds(5);
+
+		private Duration readTimeout = Duration.ofSeconds(10);
+
+		private Duration poolTimeout = Duration.ofSeconds(5);
+
+		private Duration maxIdleTime = Duration.ofSeconds(30);
+
+		private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+		private Builder() {
+		}
+
+		/**
+		 * The maximum number of open connections across all webhook hosts.
+		 */
+		public Builder maxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+			return this;
+		}
+
+		/**
+		 * The maximum number of open connections to one webhook host.
+		 */
+		public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		public Builder connectTimeout(Duration connectTimeout) {
+			this.connectTimeout = connectTimeout;
+			return this;
+		}
+
+		/**
+		 * The maximum time to wait for data from an open connection.
+		 */
+		public Builder readTimeout(Duration readTimeout) {
+			this.readTimeout = readTimeout;
+			return this;
+		}
+
+		/**
+		 * The maximum time to wait for a free connection when the pool is exhausted.
+		 */
+		public Builder poolTimeout(Duration poolTimeout) {
+			this.poolTimeout = poolTimeout;
+			return this;
+		}
+
+		/**
+		 * How long an unused connection is kept open.
+		 */
+		public Builder maxIdleTime(Duration maxIdleTime) {
+			this.maxIdleTime = maxIdleTime;
+			return this;
+		}
+
+		/**
+		 * How long a pooled connection may be idle before it is checked for staleness on lease.
+		 */
+		public Builder validateAfterInactivity(Duration validateAfterInactivity) {
+			this.validateAfterInactivity = validateAfterInactivity;
+			return this;
+		}
+
+		public SlackTransport build() {
+			return new SlackTransport(this);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package com.path.variable.commons.slack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * One memory mapped file of a {@link SlackSpool}.
+ * Records are stored back to back as [length][crc32][payload]. The length is written last, so a record that was
+ * torn by a crash reads as a zero length, which marks the end of the segment just like the zeroes of unused space.
+ */
+final class SpoolSegment implements Closeable {
+
+	static final int HEADER = 8;
+
+	private static final String PREFIX = "slack-";
+
+	private static final String SUFFIX = ".spool";
+
+	private final long index;
+
+	private final Path path;
+
+	private final FileChannel channel;
+
+	private final MappedByteBuffer buffer;
+
+	private final ByteBuffer writeView;
+
+	private final ByteBuffer readView;
+
+	private final CRC32 writeCrc = new CRC32();
+
+	private final CRC32 readCrc = new CRC32();
+
+	private SpoolSegment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+		this.index = index;
+		this.path = path;
+		this.channel = channel;
+		this.buffer = buffer;
+		this.writeView = buffer.duplicate();
+		this.readView = buffer.duplicate();
+	}
+
+	/**
+	 * Maps an existing segment with its current size or creates a new one of the given size.
+	 */
+	static SpoolSegment open(Path directory, long index, int size) throws IOException {
+		var path = directory.resolve(String.format("%s%020d%s", PREFIX, index, SUFFIX));
+		var existing = Files.exists(path) ? Files.size(path) : 0;
+		var channel = FileChannel.open(path, CREATE, READ, WRITE);
+		try {
+			var length = existing > 0 ? existing : size;
+			return new SpoolSegment(index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the index encoded in the file name or -1 if the file is not a segment
+	 */
+	static long indexOf(Path file) {
+		var name = file.getFileName().toString();
+		if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	long index() {
+		return index;
+	}
+
+	int capacity() {
+		return buffer.capacity();
+	}
+
+	boolean fits(int position, int length) {
+		return (long) position + HEADER + length <= buffer.capacity();
+	}
+
+	/**
+	 * Writes a record, the caller makes sure it fits and that only one thread writes.
+	 *
+	 * @return the position after the record
+	 */
+	int write(int position, byte[] payload) {
+		writeCrc.reset();
+		writeCrc.update(payload, 0, payload.length);
+		writeView.position(position + HEADER);
+		writeView.put(payload);
+		writeView.putInt(position + 4, (int) writeCrc.getValue());
+		writeView.putInt(position, payload.length);
+		return position + HEADER + payload.length;
+	}
+
+	/**
+	 * Reads the record at the position, only called by one thread.
+	 *
+	 * @return the payload or null if there is no intact record at the position
+	 */
+	byte[] read(int position) {
+		if (!fits(position, 0)) {
+			return null;
+		}
+		var length = readView.getInt(position);
+		if (length <= 0 || !fits(position, length)) {
+			return null;
+		}
+		var payload = new byte[length];
+		readView.position(position + HEADER);
+		readView.get(payload);
+		readCrc.reset();
+		readCrc.update(payload, 0, length);
+		return (int) readCrc.getValue() == readView.getInt(position + 4) ? payload : null;
+	}
+
+	/**
+	 * Finds the end of the intact records and clears everything after it, so that a torn record cannot be mistaken
+	 * for a new one once it is overwritten.
+	 *
+	 * @return the position after the last intact record
+	 */
+	int recover() {
+		int position = 0;
+		byte[] payload;
+		while ((payload = read(position)) != null) {
+			position += HEADER + payload.length;
+		}
+		for (int i = position; i < buffer.capacity(); i++) {
+			if (writeView.get(i) != 0) {
+				writeView.put(i, (byte) 0);
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * @return the number of intact records from the position on
+	 */
+	int count(int position) {
+		int records = 0;
+		while (fits(position, 0)) {
+			var length = buffer.getInt(position);
+			if (length <= 0 || !fits(position, length)) {
+				break;
+			}
+			records++;
+			position += HEADER + length;
+		}
+		return records;
+	}
+
+	void force() {
+		buffer.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	void delete() throws IOException {
+		close();
+		Files.deleteIfExists(path);
+	}
+}
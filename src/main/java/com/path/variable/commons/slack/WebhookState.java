@@ -0,0 +1,116 @@
+package com.path.variable.commons.slack;
+
+/**
+ * The pacing and circuit breaker state of one webhook URL.
+ * Pacing is a token bucket kept as the theoretical arrival time of the next message (GCRA): a message may go out
+ * once the clock has reached that time minus the burst tolerance, every message pushes it one interval further.
+ * A Retry-After pause simply moves the arrival time past the end of the pause.
+ */
+final class WebhookState {
+
+	static final long NO_SLOT = -1;
+
+	private enum Circuit { CLOSED, OPEN, HALF_OPEN }
+
+	private final long intervalNanos;
+
+	private final long toleranceNanos;
+
+	private final int failureThreshold;
+
+	private final long openNanos;
+
+	private final SlackDeliveryMetrics metrics = new SlackDeliveryMetrics();
+
+	private long arrivalNanos = System.nanoTime();
+
+	private Circuit circuit = Circuit.CLOSED;
+
+	private int failures;
+
+	private long openUntilNanos;
+
+	WebhookState(SlackRetryPolicy policy) {
+		this.intervalNanos = policy.getMessagesPerSecond() > 0 ? (long) (1e9 / policy.getMessagesPerSecond()) : 0;
+		this.toleranceNanos = intervalNanos * (policy.getBurst() - 1);
+		this.failureThreshold = policy.getFailureThreshold();
+		this.openNanos = policy.getOpenDuration().toNanos();
+	}
+
+	SlackDeliveryMetrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * Reserves the next send slot if it starts before the deadline. A message that could not wait that long does not
+	 * take a slot, so that dropped messages do not push the schedule of the following ones further out.
+	 *
+	 * @return how long the caller has to wait before it may send in nanoseconds, {@link #NO_SLOT} if the next slot
+	 * starts after the deadline
+	 */
+	synchronized long reserve(long now, long deadline) {
+		if (intervalNanos == 0 && arrivalNanos <= now) {
+			return 0;
+		}
+		var start = Math.max(now, arrivalNanos - toleranceNanos);
+		if (start - deadline > 0) {
+			return NO_SLOT;
+		}
+		arrivalNanos = Math.max(arrivalNanos, now) + intervalNanos;
+		return start - now;
+	}
+
+	/**
+	 * Holds back every message to this webhook until the pause is over.
+	 */
+	synchronized void pause(long now, long pauseNanos) {
+		arrivalNanos = Math.max(arrivalNanos, now + pauseNanos + toleranceNanos);
+	}
+
+	/**
+	 * @return true if messages are being dropped right now, used to fail fast before waiting for a send slot
+	 */
+	synchronized boolean isOpen(long now) {
+		return circuit == Circuit.OPEN && now - openUntilNanos < 0;
+	}
+
+	/**
+	 * Must be called right before the request is sent, in the half open state only one trial request is allowed.
+	 *
+	 * @return false if the circuit is open and the message has to be dropped
+	 */
+	synchronized boolean allowRequest(long now) {
+		switch (circuit) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (now - openUntilNanos >= 0) {
+					circuit = Circuit.HALF_OPEN;
+					return true;
+				}
+				return false;
+			default:
+				// a trial message is under way
+				return false;
+		}
+	}
+
+	/**
+	 * Records that the webhook answered, whether or not it accepted the message.
+	 */
+	synchronized void onResponse() {
+		failures = 0;
+		circuit = Circuit.CLOSED;
+	}
+
+	/**
+	 * Records a server error or a connection failure.
+	 */
+	synchronized void onFailure(long now) {
+		failures++;
+		if (failureThreshold > 0 && (circuit == Circuit.HALF_OPEN || failures >= failureThreshold)) {
+			circuit = Circuit.OPEN;
+			openUntilNanos = now + openNanos;
+		}
+	}
+}
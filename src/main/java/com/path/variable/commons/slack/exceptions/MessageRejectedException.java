@@ -0,0 +1,18 @@
+package com.path.variable.commons.slack.exceptions;
+
+/**
+ * Thrown when Slack refuses a message for good, sending it again would fail the same way.
+ */
+public class MessageRejectedException extends MessagingException {
+
+	private final int status;
+
+	public MessageRejectedException(String message, int status) {
+		super(message, null);
+		this.status = status;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+}
@@ -0,0 +1,171 @@
+package com.path.variable.commons.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LogMetricsTest {
+
+    private static final String PREFIX = LogMetricsTest.class.getName() + ".";
+
+    private final LogLevelService logLevelService = new LogLevelService();
+
+    private final Logger busy = (Logger) LoggerFactory.getLogger(PREFIX + "busy");
+
+    private final Logger quiet = (Logger) LoggerFactory.getLogger(PREFIX + "quiet");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @Before
+    public void attachAppender() {
+        appender.setName("list");
+        appender.start();
+        for (Logger logger : List.of(busy, quiet)) {
+            logger.detachAndStopAllAppenders();
+            logger.addAppender(appender);
+            logger.setAdditive(false);
+            logger.setLevel(Level.DEBUG);
+        }
+    }
+
+    @After
+    public void shutdown() {
+        logLevelService.shutdown();
+    }
+
+    @Test
+    public void doesNotCountWhileDisabled() {
+        busy.info("event");
+
+        assertTrue(logLevelService.getTopLoggers(10).isEmpty());
+        assertSame(appender, busy.getAppender("list"));
+    }
+
+    @Test
+    public void countsEventsPerLoggerAndLevel() {
+        logLevelService.getMetrics().setEnabled(true);
+
+        for (int i = 0; i < 10; i++) {
+            busy.debug("event {}", i);
+            busy.info("event {}", i);
+            busy.trace("disabled {}", i);
+        }
+        busy.isInfoEnabled();
+        quiet.warn("event");
+
+        List<LoggerMetrics> top = logLevelService.getTopLoggers(2);
+        assertEquals(busy.getName(), top.get(0).getLoggerName());
+        assertEquals(20, top.get(0).getEvents());
+        assertEquals(10, top.get(0).getEvents(Level.INFO));
+        assertEquals(0, top.get(0).getEvents(Level.TRACE));
+        assertEquals(1, top.get(1).getEvents(Level.WARN));
+        assertEquals(21, appender.list.size());
+    }
+
+    @Test
+    public void timesAppenders() {
+        LogMetrics metrics = logLevelService.getMetrics();
+        metrics.setEnabled(true);
+
+        for (int i = 0; i < 5; i++) {
+            quiet.info("event {}", i);
+        }
+
+        assertEquals(5, metrics.getLoggerMetrics(quiet.getName()).getAppenderCalls());
+        assertTrue(metrics.getLoggerMetrics(quiet.getName()).getAppenderTime().toNanos() > 0);
+        AppenderTimes times = metrics.getAppenderTimes().stream()
+                                     .filter(appenderTimes -> appenderTimes.getAppenderName().equals("list"))
+                                     .findFirst()
+                                     .orElseThrow();
+        assertEquals(5, times.getCount());
+        assertTrue(times.getPercentile(99).compareTo(times.getMax()) <= 0);
+        assertEquals(quiet.getName(), metrics.topLoggersByAppenderTime(1).get(0).getLoggerName());
+    }
+
+    @Test
+    public void keepsAppendersAttachedWhenEnabledAndDisabled() {
+        LogMetrics metrics = logLevelService.getMetrics();
+        metrics.setEnabled(true);
+        busy.info("event");
+        assertSame(appender, busy.getAppender("list"));
+
+        metrics.setEnabled(false);
+        busy.info("event");
+
+        assertSame(appender, busy.getAppender("list"));
+        assertNull(busy.getAppender("log-metrics-end"));
+        assertEquals(2, appender.list.size());
+        assertEquals(1, metrics.getLoggerMetrics(busy.getName()).getAppenderCalls());
+    }
+
+    @Test
+    public void appendsEveryEventOnceWhileToggled() throws Exception {
+        LogMetrics metrics = logLevelService.getMetrics();
+        Thread toggler = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                metrics.setEnabled(i % 2 == 0);
+            }
+        });
+        toggler.start();
+        int events = 0;
+        while (toggler.isAlive()) {
+            busy.info("event");
+            events++;
+        }
+        toggler.join();
+
+        assertEquals(events, appender.list.size());
+    }
+
+    @Test
+    public void timesAppendersAttachedLater() throws Exception {
+        LogMetrics metrics = logLevelService.getMetrics();
+        metrics.setEnabled(true);
+        ListAppender<ILoggingEvent> later = new ListAppender<>();
+        later.setName("later");
+        later.start();
+        quiet.addAppender(later);
+
+        quiet.info("found");
+        Thread.sleep(1100);
+        quiet.info("found");
+        quiet.info("timed");
+
+        assertEquals(3, later.list.size());
+        assertTrue(metrics.getAppenderTimes().stream()
+                          .anyMatch(times -> times.getAppenderName().equals("later") && times.getCount() >= 1));
+    }
+
+    @Test
+    public void registersMBean() throws Exception {
+        LogMetrics metrics = logLevelService.getMetrics();
+        ObjectName name = new ObjectName("com.path.variable.commons:type=LogMetrics,name=\"log-metrics-test\"");
+
+        metrics.registerMBean("log-metrics-test");
+        ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("Enabled", true));
+        busy.info("event");
+
+        assertTrue(metrics.isEnabled());
+        assertArrayEquals(new String[]{busy.getName()}, (String[]) ManagementFactory.getPlatformMBeanServer()
+                .invoke(name, "busiestLoggers", new Object[]{1}, new String[]{int.class.getName()}));
+        metrics.unregisterMBean();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,94 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.path.variable.commons.properties.Configuration.bootstrap;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class CompactPropertyStoreTest {
+
+    @Test
+    public void behavesLikeTheSourceMap() {
+        var map = new HashMap<String, String>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put("tenant." + i + ".region", i % 2 == 0 ? "eu" : "us");
+        }
+        map.put("caf\u00e9", "cr\u00e8me");
+        map.put("", "empty key");
+        map.put("empty.value", "");
+
+        var store = CompactPropertyStore.of(map);
+
+        assertEquals(map, store);
+        assertEquals(map.size(), store.size());
+        assertEquals("cr\u00e8me", store.get("caf\u00e9"));
+        assertEquals("empty key", store.get(""));
+        assertEquals("", store.get("empty.value"));
+        assertNull(store.get("tenant.10000.region"));
+        assertNull(store.get("caf\u00e8"));
+        assertFalse(store.containsKey(42));
+    }
+
+    @Test
+    public void storesEqualValuesOnce() {
+        var store = CompactPropertyStore.of(Map.of("a", "same", "b", "same", "c", "other"));
+
+        assertEquals(2, store.distinctValues());
+    }
+
+    @Test
+    public void supportsTypedGettersInCompactMode() {
+        var configuration = bootstrap().values(Map.of("pool.size", "10", "ratios", "0.5, 1.5"))
+                                       .compact()
+                                       .build();
+
+        assertEquals(Integer.valueOf(10), configuration.getInteger("pool.size"));
+        assertEquals(2, configuration.getDoubleList("ratios").size());
+        assertEquals("fallback", configuration.getString("missing", "fallback"));
+    }
+
+    @Test
+    public void keepsTheLastEntryOfAKey() {
+        var store = CompactPropertyStore.builder()
+                                        .put("b", "1")
+                                        .put("a", "1")
+                                        .put("b", "2")
+                                        .put("c", "1")
+                                        .put("b", "3")
+                                        .build();
+
+        assertEquals(Map.of("a", "1", "b", "3", "c", "1"), store);
+    }
+
+    @Test
+    public void loadsMappedFilesInCompactMode() throws IOException {
+        var file = Files.createTempFile("mapped", ".properties");
+        try {
+            Files.writeString(file, "a=1\nb = two\\\n  lines\nc=file\n", ISO_8859_1);
+
+            var sequential = bootstrap().mappedFile(file).values(Map.of("c", "override")).compact().build();
+            var parallel = bootstrap().mappedFile(file)
+                                      .values(Map.of("c", "override"))
+                                      .parallel(ForkJoinPool.commonPool())
+                                      .compact()
+                                      .build();
+
+            for (var configuration : new Configuration[]{sequential, parallel}) {
+                assertEquals("1", configuration.getString("a"));
+                assertEquals("twolines", configuration.getString("b"));
+                assertEquals("override", configuration.getString("c"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static com.path.variable.commons.properties.Configuration.getConfiguration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigKeyTest {
+
+    @Test
+    public void resolvesValuesOnCreation() {
+        var property = getConfiguration().property("2", String::trim, null);
+
+        assertEquals("base_dev", property.get());
+        assertEquals("2", property.getKey());
+    }
+
+    @Test
+    public void fallsBackToDefaults() {
+        assertEquals(42L, getConfiguration().longProperty("missing", 42L).getAsLong());
+        assertTrue(getConfiguration().booleanProperty("missing", true).getAsBoolean());
+    }
+
+    @Test
+    public void parsesCustomTypes() {
+        var list = getConfiguration().property("i.list", s -> s.split(",").length, 0);
+        var duration = getConfiguration().property("missing", Duration::parse, Duration.ofSeconds(5));
+
+        assertEquals(Integer.valueOf(4), list.get());
+        assertEquals(Duration.ofSeconds(5), duration.get());
+    }
+
+    @Test
+    public void keepsValuesAcrossReloads() {
+        var property = getConfiguration().booleanProperty("missing.flag", false);
+
+        getConfiguration().reload();
+
+        assertFalse(property.getAsBoolean());
+    }
+}
@@ -0,0 +1,63 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static com.path.variable.commons.properties.Configuration.bootstrap;
+import static com.path.variable.commons.properties.Configuration.getConfiguration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConfigurationBootstrapTest {
+
+    @Test
+    public void laterSourcesOverrideEarlierOnes() {
+        var configuration = bootstrap().values(Map.of("a", "1", "b", "1"))
+                                       .values(Map.of("b", "2"))
+                                       .build();
+
+        assertEquals("1", configuration.getString("a"));
+        assertEquals(Integer.valueOf(2), configuration.getInteger("b"));
+    }
+
+    @Test
+    public void parallelLoadingKeepsDeclarationOrder() throws IOException {
+        var file = Files.createTempFile("bootstrap", ".properties");
+        Files.writeString(file, "2=file\nfile.only=true");
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var configuration = bootstrap().defaults()
+                                           .file(file)
+                                           .values(Map.of("1", "map"))
+                                           .parallel(executor)
+                                           .build();
+
+            assertEquals("map", configuration.getString("1"));
+            assertEquals("file", configuration.getString("2"));
+            assertEquals("external", configuration.getString("3"));
+            assertEquals(Boolean.TRUE, configuration.getBoolean("file.only"));
+        } finally {
+            executor.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void missingSourcesLoadAsEmpty() {
+        var configuration = bootstrap().classpath("missing.properties").file(Path.of("missing")).build();
+
+        assertNull(configuration.getString("1"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotInstallAfterDefaultInitialization() {
+        getConfiguration();
+
+        bootstrap().values(Map.of()).install();
+    }
+}
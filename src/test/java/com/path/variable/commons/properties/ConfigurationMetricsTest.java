@@ -0,0 +1,66 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static com.path.variable.commons.properties.Configuration.bootstrap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationMetricsTest {
+
+    private final Configuration configuration = bootstrap().values(Map.of("hot", "1", "cold", "2")).build();
+
+    @Test
+    public void doesNotCountWhileDisabled() {
+        configuration.getString("hot");
+
+        assertTrue(configuration.getMetrics().getLookupCounts().isEmpty());
+    }
+
+    @Test
+    public void countsLookupsMissesAndDefaults() {
+        var metrics = configuration.getMetrics();
+        metrics.setEnabled(true);
+
+        configuration.getInteger("hot");
+        configuration.getString("hot");
+        configuration.getString("hot");
+        configuration.getString("cold");
+        configuration.getInteger("missing", 5);
+        configuration.getString("missing");
+
+        assertEquals(Long.valueOf(3), metrics.getLookupCounts().get("hot"));
+        assertEquals(Long.valueOf(2), metrics.getMissCounts().get("missing"));
+        assertEquals(Long.valueOf(1), metrics.getDefaultFallbackCounts().get("missing"));
+        assertEquals(List.of("hot"), metrics.hottestKeys(1));
+    }
+
+    @Test
+    public void recordsLoadAndReloadTimes() {
+        configuration.reload();
+
+        var metrics = configuration.getMetrics();
+        assertTrue(metrics.getLoadTimes().containsKey("values:2"));
+        assertEquals(1, metrics.getReloadCount());
+    }
+
+    @Test
+    public void registersMBean() throws Exception {
+        var metrics = configuration.getMetrics();
+        var name = new ObjectName("com.path.variable.commons:type=ConfigurationMetrics,name=\"metrics-test\"");
+
+        metrics.registerMBean("metrics-test");
+        ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("Enabled", true));
+
+        assertTrue(metrics.isEnabled());
+        metrics.unregisterMBean();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,56 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.path.variable.commons.properties.Configuration.bootstrap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationSubsetTest {
+
+    private final Configuration configuration = bootstrap().values(Map.of(
+            "db.pool.size", "10",
+            "db.pool.timeout", "30000",
+            "db.poolname", "main",
+            "db.url", "jdbc:h2:mem:",
+            "tenant.acme.region", "eu",
+            "tenant.acme.limits", "1, 2, 3",
+            "tenant.other.region", "us")).build();
+
+    @Test
+    public void listsEntriesByPrefixInKeyOrder() {
+        var entries = configuration.getByPrefix("db.pool");
+
+        assertEquals(List.of("db.pool.size", "db.pool.timeout", "db.poolname"), List.copyOf(entries.keySet()));
+        assertEquals("10", entries.get("db.pool.size"));
+        assertNull(entries.get("db.url"));
+    }
+
+    @Test
+    public void returnsEmptyViewForUnknownPrefix() {
+        assertTrue(configuration.getByPrefix("cache.").isEmpty());
+        assertTrue(configuration.getByPrefix("zzz").isEmpty());
+    }
+
+    @Test
+    public void subsetStripsNamespaceAndSupportsTypedGetters() {
+        var pool = configuration.subset("db.pool");
+
+        assertEquals(Integer.valueOf(10), pool.getInteger("size"));
+        assertEquals(Long.valueOf(30000L), pool.getLong("timeout", 0L));
+        assertNull(pool.getString("name"));
+    }
+
+    @Test
+    public void subsetInterpolatesNamespace() {
+        var tenant = configuration.subset("tenant.{0}", "acme");
+
+        assertEquals("eu", tenant.getString("region"));
+        assertEquals(List.of(1, 2, 3), tenant.getIntegerList("limits"));
+        assertEquals(2, configuration.getByPrefix("tenant.{0}.", "acme").size());
+    }
+}
@@ -2,8 +2,12 @@ package com.path.variable.commons.properties;
 
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static com.path.variable.commons.properties.Configuration.getConfiguration;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ConfigurationTest {
@@ -60,4 +64,37 @@ public class ConfigurationTest {
         assertTrue(list.contains(false));
         assertTrue(list.contains(true));
     }
+
+    @Test
+    public void memoizesParsedLists() {
+        var first = getConfiguration().getIntegerList("i.list");
+        var second = getConfiguration().getIntegerList("i.list");
+
+        assertSame(first, second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void returnsUnmodifiableLists() {
+        getConfiguration().getStringList("s.list").add("ghi");
+    }
+
+    @Test
+    public void returnsDefaultsAndEmptyListsForMissingKeys() {
+        assertEquals(Integer.valueOf(5), getConfiguration().getInteger("missing", 5));
+        assertFalse(getConfiguration().getBoolean("missing"));
+        assertTrue(getConfiguration().getDoubleList("missing").isEmpty());
+    }
+
+    @Test
+    public void reloadWithoutChangesKeepsValuesAndDoesNotNotify() {
+        var notified = new AtomicBoolean();
+        ConfigurationListener listener = change -> notified.set(true);
+        getConfiguration().addListener(listener);
+
+        getConfiguration().reload();
+        getConfiguration().removeListener(listener);
+
+        assertFalse(notified.get());
+        assertEquals("external_dev", getConfiguration().getString("1"));
+    }
 }
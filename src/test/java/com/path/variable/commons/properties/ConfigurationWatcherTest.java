@@ -0,0 +1,63 @@
+package com.path.variable.commons.properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.Thread.sleep;
+import static org.junit.Assert.assertEquals;
+
+public class ConfigurationWatcherTest {
+
+    private Path directory;
+
+    private ConfigurationWatcher watcher;
+
+    private final AtomicInteger reloads = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("configuration-watcher");
+        watcher = new ConfigurationWatcher(directory, name -> name.endsWith(".properties"),
+                Duration.ofMillis(300), reloads::incrementAndGet);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        watcher.close();
+        try (var files = Files.list(directory)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void debouncesConsecutiveWrites() throws Exception {
+        var file = directory.resolve("app.properties");
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, "key=" + i);
+            sleep(20);
+        }
+
+        sleep(1500);
+
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    public void ignoresUnrelatedFiles() throws Exception {
+        Files.writeString(directory.resolve("notes.txt"), "nothing to see");
+
+        sleep(1000);
+
+        assertEquals(0, reloads.get());
+    }
+}
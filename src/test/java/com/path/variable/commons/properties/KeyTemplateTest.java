@@ -0,0 +1,73 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import java.text.MessageFormat;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class KeyTemplateTest {
+
+    @Test
+    public void returnsConstantKeyAsIs() {
+        var key = "tenant.default.region";
+
+        assertSame(key, KeyTemplate.format(key, new Object[]{"eu"}));
+    }
+
+    @Test
+    public void matchesMessageFormatOutput() {
+        var patterns = new String[]{
+                "tenant.{0}.region",
+                "{0}.{1}.{0}",
+                "tenant.{2}.missing",
+                "prefix{0}",
+                "{00}suffix",
+                "tenant.'{0}'.quoted",
+                "it''s.{0}",
+                "plain.'quote",
+                "closing}.brace.{0}"
+        };
+        var args = new Object[]{"eu", 12345, new Date(0L), null, new StringBuilder("sb")};
+
+        for (var pattern : patterns) {
+            assertEquals(pattern, new MessageFormat(pattern).format(args), KeyTemplate.format(pattern, args));
+            assertEquals(pattern, new MessageFormat(pattern).format(new Object[]{12345}),
+                    KeyTemplate.format(pattern, new Object[]{12345}));
+        }
+    }
+
+    @Test
+    public void fallsBackToMessageFormatForFormattedArguments() {
+        var pattern = "{0,number,#}.amount";
+        var args = new Object[]{12345};
+
+        assertEquals(new MessageFormat(pattern).format(args), KeyTemplate.format(pattern, args));
+    }
+
+    @Test
+    public void matchesMessageFormatForNullAndShortArguments() {
+        assertEquals(new MessageFormat("a.{0}.{1}").format(null), KeyTemplate.format("a.{0}.{1}", null));
+        assertEquals(new MessageFormat("a.{0}.{1}").format(new Object[]{null}),
+                KeyTemplate.format("a.{0}.{1}", new Object[]{null}));
+    }
+
+    @Test
+    public void reusesCompiledTemplates() {
+        var first = KeyTemplate.forPattern("cached.{0}.key");
+        var second = KeyTemplate.forPattern("cached.{0}.key");
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void interpolatesThroughConfiguration() {
+        var configuration = Configuration.getConfiguration();
+
+        assertEquals("base", configuration.getString("{0}", new Object[]{"4"}));
+        assertEquals(Integer.valueOf(1), configuration.getIntegerList("i.list").get(0));
+        assertEquals(Integer.valueOf(7), configuration.getInteger("missing.{0}", 7, "key"));
+    }
+}
@@ -1,15 +1,31 @@
 package com.path.variable.commons.properties;
 
 import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.path.variable.commons.logging.LogLevelService;
+import com.path.variable.commons.logging.LogVolumeBudget;
+import com.path.variable.commons.logging.LogVolumeListener;
+import com.path.variable.commons.logging.LoggerDemotion;
+import com.path.variable.commons.logging.SampledLevel;
 import com.path.variable.commons.logging.dto.LogResponseStatus;
+import com.path.variable.commons.logging.dto.LogSampling;
+import com.path.variable.commons.logging.dto.LoggerBatchRequest;
 import com.path.variable.commons.logging.dto.LoggerChangeRequest;
+import com.path.variable.commons.logging.dto.MdcOverrideRequest;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
 
 import static java.lang.Thread.sleep;
 import static org.junit.Assert.*;
@@ -18,6 +34,8 @@ public class LogLevelServiceTest {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogLevelServiceTest.class);
 
+    private static final String BATCH_PREFIX = LogLevelServiceTest.class.getName() + ".batch.";
+
     private final LogLevelService logLevelService = new LogLevelService();
 
     @Before
@@ -25,6 +43,12 @@ public class LogLevelServiceTest {
         ((ch.qos.logback.classic.Logger) LOG).setLevel(Level.INFO);
     }
 
+    @After
+    public void clearMdc() {
+        logLevelService.shutdown();
+        MDC.clear();
+    }
+
     @Test
     public void willSetLogLevel() {
         LoggerChangeRequest request = new LoggerChangeRequest(LogLevelServiceTest.class.getName(), "TRACE", null);
@@ -93,4 +117,437 @@ public class LogLevelServiceTest {
 
         assertEquals(LogResponseStatus.LEVEL_NOT_FOUND, response);
     }
+
+    @Test
+    public void willKeepBaselineForOverlappingTimedRequests() throws InterruptedException {
+        String name = LogLevelServiceTest.class.getName();
+        logLevelService.setLogLevel(new LoggerChangeRequest(name, "DEBUG", Duration.ofMillis(200)));
+        logLevelService.setLogLevel(new LoggerChangeRequest(name, "TRACE", Duration.ofMillis(400)));
+
+        assertEquals(1, logLevelService.getPendingReverts().size());
+        assertEquals(Level.INFO, logLevelService.getPendingReverts().get(0).getBaseline());
+
+        sleep(300);
+        assertTrue(LOG.isTraceEnabled());
+
+        sleep(300);
+        assertEquals(Level.INFO, logLevelService.getLogLevel(name));
+        assertTrue(logLevelService.getPendingReverts().isEmpty());
+    }
+
+    @Test
+    public void willRevertToInheritedLevel() throws InterruptedException {
+        String name = LogLevelServiceTest.class.getName() + ".inherited";
+        ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(name);
+        logger.setLevel(null);
+
+        LogResponseStatus response = logLevelService.setLogLevel(new LoggerChangeRequest(name, "TRACE", Duration.ofMillis(100)));
+
+        assertEquals(LogResponseStatus.TIMER_SUCCESSFUL, response);
+        sleep(300);
+        assertNull(logger.getLevel());
+        assertEquals(Level.INFO, logger.getEffectiveLevel());
+    }
+
+    @Test
+    public void willCancelTimedRequest() {
+        String name = LogLevelServiceTest.class.getName();
+        logLevelService.setLogLevel(new LoggerChangeRequest(name, "TRACE", Duration.ofMinutes(5)));
+
+        assertTrue(logLevelService.cancel(name));
+
+        assertEquals(Level.INFO, logLevelService.getLogLevel(name));
+        assertFalse(logLevelService.cancel(name));
+    }
+
+    @Test
+    public void willDropRevertOnPermanentChange() throws InterruptedException {
+        String name = LogLevelServiceTest.class.getName();
+        logLevelService.setLogLevel(new LoggerChangeRequest(name, "TRACE", Duration.ofMillis(100)));
+        logLevelService.setLogLevel(new LoggerChangeRequest(name, "WARN", null));
+
+        sleep(300);
+
+        assertEquals(Level.WARN, logLevelService.getLogLevel(name));
+        assertTrue(logLevelService.getPendingReverts().isEmpty());
+    }
+
+    @Test
+    public void willNotLoseRequestsOverlappingARevert() throws InterruptedException {
+        int loggers = 300;
+        for (int i = 0; i < loggers; i++) {
+            String timed = batchLogger("overlap.timed." + i).getName();
+            String permanent = batchLogger("overlap.permanent." + i).getName();
+            // the first revert is due while the second request is being applied
+            logLevelService.setLogLevel(new LoggerChangeRequest(timed, "DEBUG", Duration.ofNanos(i * 500L)));
+            logLevelService.setLogLevel(new LoggerChangeRequest(timed, "TRACE", Duration.ofMillis(20)));
+            logLevelService.setLogLevel(new LoggerChangeRequest(permanent, "DEBUG", Duration.ofNanos(i * 500L)));
+            logLevelService.setLogLevel(new LoggerChangeRequest(permanent, "WARN", null));
+        }
+
+        for (int i = 0; i < 100 && !logLevelService.getPendingReverts().isEmpty(); i++) {
+            sleep(50);
+        }
+        sleep(50);
+
+        for (int i = 0; i < loggers; i++) {
+            assertEquals(Level.INFO, logLevelService.getLogLevel(BATCH_PREFIX + "overlap.timed." + i));
+            assertEquals(Level.WARN, logLevelService.getLogLevel(BATCH_PREFIX + "overlap.permanent." + i));
+        }
+    }
+
+    @Test
+    public void willRevertPendingRequestsOnShutdown() {
+        LogLevelService service = new LogLevelService();
+        String name = LogLevelServiceTest.class.getName();
+        service.setLogLevel(new LoggerChangeRequest(name, "TRACE", Duration.ofMinutes(5)));
+
+        service.shutdown();
+
+        assertEquals(Level.INFO, service.getLogLevel(name));
+        assertEquals(LogResponseStatus.ERROR, service.setLogLevel(new LoggerChangeRequest(name, "TRACE", Duration.ofMinutes(5))));
+        assertEquals(Level.INFO, service.getLogLevel(name));
+    }
+
+    @Test
+    public void willErrorOnNonExistentLevelForTimedRequest() {
+        LoggerChangeRequest request = new LoggerChangeRequest(LogLevelServiceTest.class.getName(), "TRIPPING", Duration.ofMillis(100));
+
+        assertEquals(LogResponseStatus.LEVEL_NOT_FOUND, logLevelService.setLogLevel(request));
+        assertTrue(logLevelService.getPendingReverts().isEmpty());
+    }
+
+    @Test
+    public void willChangeLoggersMatchingGlob() {
+        ch.qos.logback.classic.Logger first = batchLogger("glob.first");
+        ch.qos.logback.classic.Logger second = batchLogger("glob.nested.second");
+        ch.qos.logback.classic.Logger other = batchLogger("other");
+
+        Map<String, LogResponseStatus> results = logLevelService.setLogLevels(new LoggerBatchRequest(List.of(
+                new LoggerChangeRequest(BATCH_PREFIX + "glob.*", "DEBUG", null)), null));
+
+        assertEquals(LogResponseStatus.CHANGED, results.get(first.getName()));
+        assertEquals(LogResponseStatus.CHANGED, results.get(second.getName()));
+        assertEquals(Level.DEBUG, first.getLevel());
+        assertEquals(Level.DEBUG, second.getLevel());
+        assertEquals(Level.INFO, other.getLevel());
+    }
+
+    @Test
+    public void willApplyLaterRequestsOfABatchLast() {
+        ch.qos.logback.classic.Logger first = batchLogger("regex.first");
+        ch.qos.logback.classic.Logger second = batchLogger("regex.second");
+
+        Map<String, LogResponseStatus> results = logLevelService.setLogLevels(new LoggerBatchRequest(List.of(
+                new LoggerChangeRequest("regex:" + Pattern.quote(BATCH_PREFIX + "regex.") + "\\w+", "DEBUG", null),
+                new LoggerChangeRequest(second.getName(), "TRACE", null)), null));
+
+        assertEquals(2, results.size());
+        assertEquals(Level.DEBUG, first.getLevel());
+        assertEquals(Level.TRACE, second.getLevel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void willRejectBatchWithoutLoggerName() {
+        logLevelService.setLogLevels(new LoggerBatchRequest(List.of(
+                new LoggerChangeRequest(null, "DEBUG", null)), null));
+    }
+
+    @Test
+    public void willSkipWholeBatchOnInvalidRequest() {
+        ch.qos.logback.classic.Logger logger = batchLogger("atomic.first");
+
+        Map<String, LogResponseStatus> results = logLevelService.setLogLevels(new LoggerBatchRequest(List.of(
+                new LoggerChangeRequest(logger.getName(), "DEBUG", null),
+                new LoggerChangeRequest(BATCH_PREFIX + "atomic.missing?", "DEBUG", null),
+                new LoggerChangeRequest("regex:[", "DEBUG", null)), null));
+
+        assertEquals(LogResponseStatus.SKIPPED, results.get(logger.getName()));
+        assertEquals(LogResponseStatus.LOGGER_NOT_FOUND, results.get(BATCH_PREFIX + "atomic.missing?"));
+        assertEquals(LogResponseStatus.INVALID_REQUEST, results.get("regex:["));
+        assertEquals(Level.INFO, logger.getLevel());
+    }
+
+    @Test
+    public void willRevertTimedBatchTogether() throws InterruptedException {
+        ch.qos.logback.classic.Logger first = batchLogger("timed.first");
+        ch.qos.logback.classic.Logger second = batchLogger("timed.second");
+
+        Map<String, LogResponseStatus> results = logLevelService.setLogLevels(new LoggerBatchRequest(List.of(
+                new LoggerChangeRequest(BATCH_PREFIX + "timed.*", "TRACE", null)), Duration.ofMillis(100)));
+
+        assertEquals(LogResponseStatus.TIMER_SUCCESSFUL, results.get(first.getName()));
+        assertEquals(2, logLevelService.getPendingReverts().size());
+        assertEquals(Level.TRACE, second.getLevel());
+
+        sleep(300);
+        assertEquals(Level.INFO, first.getLevel());
+        assertEquals(Level.INFO, second.getLevel());
+        assertTrue(logLevelService.getPendingReverts().isEmpty());
+    }
+
+    @Test
+    public void willKeepOtherBatchRevertsOnCancel() {
+        ch.qos.logback.classic.Logger first = batchLogger("cancel.first");
+        ch.qos.logback.classic.Logger second = batchLogger("cancel.second");
+        logLevelService.setLogLevels(new LoggerBatchRequest(List.of(
+                new LoggerChangeRequest(BATCH_PREFIX + "cancel.*", "TRACE", null)), Duration.ofMinutes(5)));
+
+        assertTrue(logLevelService.cancel(first.getName()));
+
+        assertEquals(Level.INFO, first.getLevel());
+        assertEquals(Level.TRACE, second.getLevel());
+        assertEquals(second.getName(), logLevelService.getPendingReverts().get(0).getLoggerName());
+        assertTrue(logLevelService.cancel(second.getName()));
+    }
+
+    @Test
+    public void willEnableLevelOnlyForMatchingMdc() {
+        String name = LogLevelServiceTest.class.getName();
+        LogResponseStatus response = logLevelService.addMdcOverride(new MdcOverrideRequest(name, "DEBUG", "tenant", "acme", null));
+
+        assertEquals(LogResponseStatus.CHANGED, response);
+        assertFalse(LOG.isDebugEnabled());
+        MDC.put("tenant", "other");
+        assertFalse(LOG.isDebugEnabled());
+        MDC.put("tenant", "acme");
+        assertTrue(LOG.isDebugEnabled());
+        assertFalse(LOG.isTraceEnabled());
+        assertEquals(Level.INFO, logLevelService.getLogLevel(name));
+    }
+
+    @Test
+    public void willApplyMdcOverrideToChildLoggers() {
+        ch.qos.logback.classic.Logger child = batchLogger("mdc.child");
+        ch.qos.logback.classic.Logger sibling = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BATCH_PREFIX + "mdcx");
+        logLevelService.addMdcOverride(new MdcOverrideRequest(BATCH_PREFIX + "mdc", "TRACE", "traceId", "42", null));
+
+        MDC.put("traceId", "42");
+
+        assertTrue(child.isTraceEnabled());
+        assertFalse(sibling.isTraceEnabled());
+    }
+
+    @Test
+    public void willRemoveMdcOverrideAfterDuration() throws InterruptedException {
+        String name = LogLevelServiceTest.class.getName();
+        LogResponseStatus response = logLevelService.addMdcOverride(
+                new MdcOverrideRequest(name, "DEBUG", "tenant", "acme", Duration.ofMillis(100)));
+        MDC.put("tenant", "acme");
+
+        assertEquals(LogResponseStatus.TIMER_SUCCESSFUL, response);
+        assertTrue(LOG.isDebugEnabled());
+
+        sleep(300);
+        assertFalse(LOG.isDebugEnabled());
+        assertTrue(logLevelService.getMdcOverrides().isEmpty());
+    }
+
+    @Test
+    public void willRemoveMdcOverrideThatExpiresRightAway() throws InterruptedException {
+        String name = LogLevelServiceTest.class.getName();
+        logLevelService.addMdcOverride(new MdcOverrideRequest(name, "DEBUG", "tenant", "acme", Duration.ofNanos(1)));
+
+        sleep(100);
+        assertTrue(logLevelService.getMdcOverrides().isEmpty());
+    }
+
+    @Test
+    public void willKeepReplacingMdcOverrideAfterReplacedOneExpires() throws InterruptedException {
+        String name = LogLevelServiceTest.class.getName();
+        logLevelService.addMdcOverride(new MdcOverrideRequest(name, "DEBUG", "tenant", "acme", Duration.ofMillis(100)));
+        logLevelService.addMdcOverride(new MdcOverrideRequest(name, "TRACE", "tenant", "acme", Duration.ofMillis(400)));
+        MDC.put("tenant", "acme");
+
+        sleep(200);
+        assertTrue(LOG.isTraceEnabled());
+
+        sleep(400);
+        assertFalse(LOG.isDebugEnabled());
+        assertTrue(logLevelService.getMdcOverrides().isEmpty());
+    }
+
+    @Test
+    public void willUnregisterFilterWithoutMdcOverrides() {
+        String name = LogLevelServiceTest.class.getName();
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        int filters = context.getTurboFilterList().size();
+        logLevelService.addMdcOverride(new MdcOverrideRequest(name, "DEBUG", "tenant", "acme", null));
+        logLevelService.addMdcOverride(new MdcOverrideRequest(name, "TRACE", "tenant", "acme", null));
+
+        assertEquals(filters + 1, context.getTurboFilterList().size());
+        assertEquals(Level.TRACE, logLevelService.getMdcOverrides().get(0).getLevel());
+        assertTrue(logLevelService.removeMdcOverride(name, "tenant", "acme"));
+        assertFalse(logLevelService.removeMdcOverride(name, "tenant", "acme"));
+        assertEquals(filters, context.getTurboFilterList().size());
+    }
+
+    @Test
+    public void willRejectInvalidMdcOverride() {
+        String name = LogLevelServiceTest.class.getName();
+
+        assertEquals(LogResponseStatus.INVALID_REQUEST, logLevelService.addMdcOverride(new MdcOverrideRequest(name, "DEBUG", null, "acme", null)));
+        assertEquals(LogResponseStatus.LEVEL_NOT_FOUND, logLevelService.addMdcOverride(new MdcOverrideRequest(name, "LOUD", "tenant", "acme", null)));
+        assertEquals(LogResponseStatus.LOGGER_NOT_FOUND, logLevelService.addMdcOverride(new MdcOverrideRequest("MissingSaucer", "DEBUG", "tenant", "acme", null)));
+        assertTrue(logLevelService.getMdcOverrides().isEmpty());
+    }
+
+    @Test
+    public void willLetThroughOneInNEvents() {
+        ch.qos.logback.classic.Logger logger = batchLogger("sampled.oneIn");
+        ListAppender<ILoggingEvent> appender = listAppender(logger);
+
+        LogResponseStatus response = logLevelService.setLogLevel(
+                new LoggerChangeRequest(logger.getName(), "DEBUG", null, LogSampling.oneIn(10)));
+        for (int i = 0; i < 100; i++) {
+            logger.debug("event {}", i);
+            logger.info("event {}", i);
+        }
+
+        assertEquals(LogResponseStatus.CHANGED, response);
+        assertTrue(logger.isDebugEnabled());
+        assertEquals(110, appender.list.size());
+        SampledLevel sampled = logLevelService.getSampledLevels().get(0);
+        assertEquals(10, sampled.getAccepted());
+        assertEquals(90, sampled.getDropped());
+        assertEquals(Level.INFO, sampled.getThreshold());
+    }
+
+    @Test
+    public void willNotSampleChildWithOwnLevel() {
+        ch.qos.logback.classic.Logger parent = batchLogger("sampled.parent");
+        ch.qos.logback.classic.Logger child = batchLogger("sampled.parent.child");
+        child.setLevel(Level.DEBUG);
+        ch.qos.logback.classic.Logger grandchild = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(
+                child.getName() + ".inherited");
+        ListAppender<ILoggingEvent> appender = listAppender(child);
+
+        logLevelService.setLogLevel(new LoggerChangeRequest(parent.getName(), "DEBUG", null, LogSampling.oneIn(10)));
+        for (int i = 0; i < 10; i++) {
+            child.debug("event {}", i);
+            grandchild.debug("event {}", i);
+        }
+
+        assertEquals(20, appender.list.size());
+        assertEquals(0, logLevelService.getSampledLevels().get(0).getDropped());
+    }
+
+    @Test
+    public void willCapSampledEventsPerSecond() {
+        ch.qos.logback.classic.Logger logger = batchLogger("sampled.perSecond");
+        ch.qos.logback.classic.Logger child = batchLogger("sampled.perSecond.child");
+        child.setLevel(null);
+        ListAppender<ILoggingEvent> appender = listAppender(logger);
+
+        logLevelService.setLogLevel(new LoggerChangeRequest(logger.getName(), "TRACE", null, LogSampling.perSecond(5)));
+        for (int i = 0; i < 100; i++) {
+            child.trace("event {}", i);
+        }
+
+        assertTrue(String.valueOf(appender.list.size()), appender.list.size() >= 5 && appender.list.size() <= 6);
+        assertEquals(100 - appender.list.size(), logLevelService.getSampledLevels().get(0).getDropped());
+    }
+
+    @Test
+    public void willEndSamplingWithRevert() throws InterruptedException {
+        ch.qos.logback.classic.Logger logger = batchLogger("sampled.timed");
+
+        LogResponseStatus response = logLevelService.setLogLevel(
+                new LoggerChangeRequest(logger.getName(), "DEBUG", Duration.ofMillis(100), LogSampling.oneIn(2)));
+
+        assertEquals(LogResponseStatus.TIMER_SUCCESSFUL, response);
+        assertEquals(1, logLevelService.getSampledLevels().size());
+        sleep(300);
+        assertEquals(Level.INFO, logger.getLevel());
+        assertTrue(logLevelService.getSampledLevels().isEmpty());
+    }
+
+    @Test
+    public void willEndSamplingWithUnsampledChange() {
+        ch.qos.logback.classic.Logger logger = batchLogger("sampled.replaced");
+        ListAppender<ILoggingEvent> appender = listAppender(logger);
+        logLevelService.setLogLevel(new LoggerChangeRequest(logger.getName(), "DEBUG", null, LogSampling.oneIn(1000)));
+
+        logLevelService.setLogLevel(new LoggerChangeRequest(logger.getName(), "DEBUG", null));
+        for (int i = 0; i < 10; i++) {
+            logger.debug("event {}", i);
+        }
+
+        assertTrue(logLevelService.getSampledLevels().isEmpty());
+        assertEquals(10, appender.list.size());
+    }
+
+    @Test
+    public void willDemoteAndRestoreRunawayLogger() throws InterruptedException {
+        ch.qos.logback.classic.Logger logger = batchLogger("volume.runaway");
+        ch.qos.logback.classic.Logger quiet = batchLogger("volume.quiet");
+        ListAppender<ILoggingEvent> appender = listAppender(logger);
+        List<LoggerDemotion> demotions = new CopyOnWriteArrayList<>();
+        List<LoggerDemotion> restores = new CopyOnWriteArrayList<>();
+        logLevelService.enableVolumeGovernor(LogVolumeBudget.builder(1000).checkInterval(Duration.ofMillis(200)).build(),
+                new LogVolumeListener() {
+                    @Override
+                    public void demoted(LoggerDemotion demotion) {
+                        demotions.add(demotion);
+                    }
+
+                    @Override
+                    public void restored(LoggerDemotion demotion) {
+                        restores.add(demotion);
+                    }
+                });
+
+        for (int i = 0; i < 1000; i++) {
+            logger.info("event {}", i);
+        }
+        quiet.info("event");
+        sleep(300);
+
+        assertEquals(1, demotions.size());
+        assertEquals(logger.getName(), demotions.get(0).getLoggerName());
+        assertEquals(Level.WARN, logger.getLevel());
+        assertEquals(Level.INFO, quiet.getLevel());
+        assertEquals(demotions, logLevelService.getDemotions());
+        logger.info("suppressed");
+        assertEquals(1000, appender.list.size());
+
+        sleep(300);
+        assertEquals(demotions, restores);
+        assertEquals(Level.INFO, logger.getLevel());
+        assertTrue(logLevelService.getDemotions().isEmpty());
+    }
+
+    @Test
+    public void willRestoreDemotedLoggersOnDisable() throws InterruptedException {
+        ch.qos.logback.classic.Logger logger = batchLogger("volume.disabled");
+        logger.setLevel(null);
+        listAppender(logger);
+        logLevelService.enableVolumeGovernor(LogVolumeBudget.builder(10).checkInterval(Duration.ofMillis(200)).build(),
+                demotion -> { });
+
+        for (int i = 0; i < 1000; i++) {
+            logger.info("event {}", i);
+        }
+        sleep(300);
+        assertEquals(Level.WARN, logger.getLevel());
+
+        logLevelService.disableVolumeGovernor();
+        assertNull(logger.getLevel());
+        assertTrue(logLevelService.getDemotions().isEmpty());
+    }
+
+    private static ch.qos.logback.classic.Logger batchLogger(String suffix) {
+        ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(BATCH_PREFIX + suffix);
+        logger.setLevel(Level.INFO);
+        return logger;
+    }
+
+    private static ListAppender<ILoggingEvent> listAppender(ch.qos.logback.classic.Logger logger) {
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.detachAndStopAllAppenders();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        return appender;
+    }
 }
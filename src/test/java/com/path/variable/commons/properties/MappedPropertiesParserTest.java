@@ -0,0 +1,99 @@
+package com.path.variable.commons.properties;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+
+public class MappedPropertiesParserTest {
+
+    private static final String ALPHABET = "ab #!=:\\\\\\\t\f\r\r\n\n\nu0fF \u00e9";
+
+    @Test
+    public void parsesLikeProperties() throws IOException {
+        var content = "# comment \\\n"
+                + "! another comment\r\n"
+                + "   key1 = value1\n"
+                + "key2:value2\r"
+                + "key3 value3\n"
+                + "key4\n"
+                + "multi = first, \\\n"
+                + "        second, \\\r\n"
+                + "        third\n"
+                + "escaped\\ key\\:\\= = tab\\there\\nnewline\\u00e9\\\\\n"
+                + "\n   \t\f\n"
+                + "continued\\\n# not a comment\n"
+                + "latin1 = caf\u00e9\n"
+                + "key1 = overridden\n"
+                + "trailing = backslash\\";
+
+        assertSameAsProperties(content);
+    }
+
+    @Test
+    public void parsesEdgeCasesAtTheEndOfInput() throws IOException {
+        for (var content : new String[]{"", "\\", "\\\n", "\\\n ", "a\\\n", "#", "a=b\\\r", "a=\\\\", " \\\r\nb"}) {
+            assertSameAsProperties(content);
+        }
+    }
+
+    @Test
+    public void matchesPropertiesForRandomInput() throws IOException {
+        var random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            var content = new StringBuilder();
+            var length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                content.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            assertSameAsProperties(content.toString());
+        }
+    }
+
+    @Test
+    public void loadsMappedFiles() throws IOException {
+        var file = Files.createTempFile("mapped", ".properties");
+        try {
+            Files.writeString(file, "a=1\nb = two\\\n  lines\n", ISO_8859_1);
+
+            var properties = ConfigurationSource.mappedFile(file).load();
+
+            assertEquals("1", properties.getProperty("a"));
+            assertEquals("twolines", properties.getProperty("b"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertSameAsProperties(String content) throws IOException {
+        var bytes = content.getBytes(ISO_8859_1);
+        Object expected;
+        try {
+            var properties = new Properties();
+            properties.load(new ByteArrayInputStream(bytes));
+            expected = new HashMap<>(properties);
+        } catch (IllegalArgumentException e) {
+            expected = e.getMessage();
+        }
+
+        Object actual;
+        try {
+            Map<Object, Object> parsed = new HashMap<>();
+            new MappedPropertiesParser(ByteBuffer.wrap(bytes)).parse(parsed::put);
+            actual = parsed;
+        } catch (IllegalArgumentException e) {
+            actual = e.getMessage();
+        }
+
+        assertEquals(content, expected, actual);
+    }
+}
@@ -0,0 +1,148 @@
+package com.path.variable.commons.slack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncSlackHookTest {
+
+    private SlackStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SlackStubServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void coalescesQueuedPlainTexts() throws Exception {
+        try (var hook = AsyncSlackHook.builder(new SlackHook(server.url())).linger(Duration.ofMillis(200)).build()) {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(hook.sendPlainText("alert " + i));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, server.requests().size());
+        assertTrue(server.requests().get(0).contains("alert 0\\nalert 1"));
+    }
+
+    @Test
+    public void mergesBlockMessages() throws Exception {
+        try (var hook = AsyncSlackHook.builder(new SlackHook(server.url())).build()) {
+            var message = new SlackMessage();
+            message.addSection().getText().setText("first");
+
+            var first = hook.sendMessage(message);
+            var second = hook.sendPlainText("second");
+
+            CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, server.requests().size());
+        assertTrue(server.requests().get(0).contains("\"blocks\""));
+    }
+
+    @Test
+    public void respectsBatchSize() throws Exception {
+        try (var hook = AsyncSlackHook.builder(new SlackHook(server.url())).maxBatchSize(3).build()) {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 9; i++) {
+                futures.add(hook.sendPlainText("alert " + i));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(3, server.requests().size());
+    }
+
+    @Test
+    public void fillsBatchUpToMaxTextLength() throws Exception {
+        // "alert i" takes 7 characters, two texts and their separator take exactly 15
+        try (var hook = AsyncSlackHook.builder(new SlackHook(server.url()))
+                                      .maxTextLength(15)
+                                      .linger(Duration.ofMillis(200))
+                                      .build()) {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(hook.sendPlainText("alert " + i));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(3, server.requests().size());
+        assertTrue(server.requests().get(0).contains("alert 0\\nalert 1\""));
+    }
+
+    @Test
+    public void dropsNewestWhenFull() throws Exception {
+        server.delay(500);
+        try (var hook = AsyncSlackHook.builder(new SlackHook(server.url()))
+                                      .capacity(1)
+                                      .maxBatchSize(1)
+                                      .overflowPolicy(OverflowPolicy.DROP_NEWEST)
+                                      .build()) {
+            var inFlight = hook.sendPlainText("in flight");
+            Thread.sleep(100);
+            var queued = hook.sendPlainText("queued");
+            var dropped = hook.sendPlainText("dropped");
+
+            assertTrue(dropped.isCompletedExceptionally());
+            assertEquals(1, hook.getDroppedCount());
+            CompletableFuture.allOf(inFlight, queued).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void completesMessagesSubmittedWhileClosing() throws Exception {
+        var futures = new ConcurrentLinkedQueue<CompletableFuture<Void>>();
+        for (int round = 0; round < 20; round++) {
+            var hook = AsyncSlackHook.builder(new SlackHook(server.url()))
+                                     .capacity(10)
+                                     .overflowPolicy(OverflowPolicy.BLOCK)
+                                     .linger(Duration.ZERO)
+                                     .build();
+            var submitter = new Thread(() -> {
+                CompletableFuture<Void> future;
+                do {
+                    future = hook.sendPlainText("alert");
+                    futures.add(future);
+                } while (!future.isCompletedExceptionally());
+            });
+            submitter.start();
+            hook.close();
+            submitter.join();
+        }
+
+        // every future completes, either sent or failed because the hook was closed
+        CompletableFuture.allOf(futures.stream().map(future -> future.handle((result, e) -> null))
+                                       .toArray(CompletableFuture[]::new))
+                         .get(5, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void failsFuturesWhenSendingFails() throws Exception {
+        try (var hook = AsyncSlackHook.builder(new SlackHook("http://127.0.0.1:1/hook", SlackTransport.shared(),
+                SlackRetryPolicy.none())).build()) {
+            hook.sendPlainText("unreachable").get(5, TimeUnit.SECONDS);
+        }
+    }
+}
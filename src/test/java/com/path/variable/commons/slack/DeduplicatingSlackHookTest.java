@@ -0,0 +1,138 @@
+package com.path.variable.commons.slack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeduplicatingSlackHookTest {
+
+    private SlackStubServer server;
+
+    private SlackHook hook;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SlackStubServer();
+        hook = new SlackHook(server.url(), SlackTransport.shared(), SlackRetryPolicy.none());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void collapsesRepetitionsIntoSummary() throws Exception {
+        try (var dedup = DeduplicatingSlackHook.builder(hook).window(Duration.ofMillis(300)).build()) {
+            for (int i = 0; i < 100; i++) {
+                dedup.sendPlainText("Disk full");
+            }
+            dedup.sendPlainText("Other alert");
+
+            assertEquals(2, server.requests().size());
+            assertEquals(99, dedup.getSuppressedCount());
+
+            Thread.sleep(700);
+            assertEquals(3, server.requests().size());
+            assertTrue(server.requests().get(2).contains("Disk full (\u00d799 in last 300ms)"));
+        }
+    }
+
+    @Test
+    public void forgetsMessagesThatWereNotRepeated() throws Exception {
+        try (var dedup = DeduplicatingSlackHook.builder(hook).window(Duration.ofMillis(200)).build()) {
+            dedup.sendPlainText("once");
+            Thread.sleep(600);
+
+            assertEquals(0, dedup.getTrackedCount());
+            dedup.sendPlainText("once");
+            assertEquals(2, server.requests().size());
+        }
+    }
+
+    @Test
+    public void usesFingerprint() {
+        try (var dedup = DeduplicatingSlackHook.builder(hook)
+                                               .fingerprint(text -> text.replaceAll("[0-9]+", "#"))
+                                               .build()) {
+            dedup.sendPlainText("Timeout after 3012ms");
+            dedup.sendPlainText("Timeout after 3015ms");
+
+            assertEquals(1, server.requests().size());
+            assertEquals(1, dedup.getSuppressedCount());
+        }
+    }
+
+    @Test
+    public void boundsTrackedFingerprints() throws Exception {
+        try (var dedup = DeduplicatingSlackHook.builder(hook).maxEntries(20).build()) {
+            for (int i = 0; i < 50; i++) {
+                dedup.sendPlainText("alert " + i);
+                assertTrue(dedup.getTrackedCount() <= 40);
+            }
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (dedup.getTrackedCount() > 20 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(dedup.getTrackedCount() <= 20);
+            assertEquals(50, server.requests().size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyWindow() {
+        DeduplicatingSlackHook.builder(hook).window(Duration.ZERO).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoEntries() {
+        DeduplicatingSlackHook.builder(hook).maxEntries(0).build();
+    }
+
+    @Test
+    public void sendsSummariesOfEvictedWindowsInBackground() throws Exception {
+        var summaryThreads = new CopyOnWriteArrayList<String>();
+        var recordingHook = new SlackHook(server.url(), SlackTransport.shared(), SlackRetryPolicy.none()) {
+            @Override
+            public void sendPlainText(String text) {
+                if (text.contains("\u00d7")) {
+                    summaryThreads.add(Thread.currentThread().getName());
+                }
+                super.sendPlainText(text);
+            }
+        };
+        try (var dedup = DeduplicatingSlackHook.builder(recordingHook).maxEntries(10).build()) {
+            for (int i = 0; i < 30; i++) {
+                dedup.sendPlainText("alert " + i);
+                dedup.sendPlainText("alert " + i);
+            }
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (summaryThreads.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(summaryThreads.isEmpty());
+            assertTrue(summaryThreads.stream().allMatch(name -> name.startsWith("slack-dedup-")));
+        }
+    }
+
+    @Test
+    public void sendsPendingSummariesOnClose() {
+        var dedup = DeduplicatingSlackHook.builder(hook).build();
+        dedup.sendPlainText("Disk full");
+        dedup.sendPlainText("Disk full");
+
+        dedup.close();
+
+        assertEquals(2, server.requests().size());
+        assertTrue(server.requests().get(1).contains("\u00d71 in last 1m"));
+    }
+}
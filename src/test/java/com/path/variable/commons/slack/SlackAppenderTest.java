@@ -0,0 +1,151 @@
+package com.path.variable.commons.slack;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MarkerFactory;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlackAppenderTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlackAppenderTest.class.getName() + ".app");
+
+    private final Logger other = (Logger) LoggerFactory.getLogger(SlackAppenderTest.class.getName() + ".other");
+
+    private SlackStubServer server;
+
+    private SlackAppender appender;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new SlackStubServer();
+        appender = new SlackAppender();
+        appender.setName("slack");
+        appender.setContext((LoggerContext) LoggerFactory.getILoggerFactory());
+        appender.setHook(new SlackHook(server.url(), SlackTransport.shared(), SlackRetryPolicy.none()));
+        appender.setTitle("checkout");
+        appender.setGroupWindowMillis(200);
+        for (Logger target : new Logger[]{logger, other}) {
+            target.detachAndStopAllAppenders();
+            target.setAdditive(false);
+            target.setLevel(Level.INFO);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        appender.stop();
+        server.close();
+    }
+
+    @Test
+    public void groupsBurstIntoOneMessage() {
+        start();
+
+        logger.error("Payment failed for order {}", 1);
+        logger.error("Payment failed for order {}", 1);
+        logger.error("Payment failed for order {}", 1);
+        logger.error("Inventory <unavailable>", new IllegalStateException("no stock"));
+        logger.warn("Not forwarded");
+        appender.stop();
+
+        assertEquals(1, server.requests().size());
+        String payload = server.requests().get(0);
+        assertTrue(payload, payload.contains("*checkout*: 4 events"));
+        assertTrue(payload, payload.contains("Payment failed for order 1"));
+        assertTrue(payload, payload.contains("\u00d73"));
+        assertTrue(payload, payload.contains("Inventory &lt;unavailable&gt;"));
+        assertTrue(payload, payload.contains("java.lang.IllegalStateException: no stock"));
+        assertFalse(payload, payload.contains("Not forwarded"));
+        assertEquals(1, appender.getSentCount());
+    }
+
+    @Test
+    public void truncatesLongMessagesBeforeEscaping() {
+        start();
+
+        logger.error("&".repeat(3000));
+        appender.stop();
+
+        String payload = server.requests().get(0);
+        assertTrue(payload, payload.contains("&amp;\u2026"));
+        assertFalse(payload, Pattern.compile("&(?!amp;)").matcher(payload).find());
+    }
+
+    @Test
+    public void forwardsOnlyMatchingLoggersAndMarkers() {
+        appender.setLevel("WARN");
+        appender.setLoggers(logger.getName());
+        appender.setMarker("ALERT");
+        start();
+
+        logger.warn(MarkerFactory.getMarker("ALERT"), "Disk almost full");
+        logger.warn("Without marker");
+        other.warn(MarkerFactory.getMarker("ALERT"), "Other logger");
+        appender.stop();
+
+        assertEquals(1, server.requests().size());
+        assertTrue(server.requests().get(0).contains("Disk almost full"));
+        assertFalse(server.requests().get(0).contains("Without marker"));
+        assertFalse(server.requests().get(0).contains("Other logger"));
+    }
+
+    @Test
+    public void dropsEventsInsteadOfBlockingWhenBufferIsFull() {
+        server.delay(300);
+        appender.setBufferSize(4);
+        appender.setGroupWindowMillis(0);
+        appender.setMaxEventsPerMessage(1);
+        start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            logger.error("Failure {}", i);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        appender.stop();
+
+        assertTrue("Logging took " + elapsedMillis + " ms", elapsedMillis < 250);
+        assertTrue(appender.getDroppedCount() >= 90);
+        assertEquals(100, appender.getDroppedCount() + appender.getSentCount());
+        assertTrue(server.requests().stream().anyMatch(request -> request.contains("events were dropped")));
+    }
+
+    @Test
+    public void countsMessagesSlackRejects() {
+        server.respondWith(() -> 500);
+        start();
+
+        logger.error("Failure");
+        appender.stop();
+
+        assertEquals(1, appender.getFailedCount());
+        assertEquals(0, appender.getSentCount());
+    }
+
+    @Test
+    public void doesNotStartWithoutWebhook() {
+        SlackAppender unconfigured = new SlackAppender();
+        unconfigured.setContext((LoggerContext) LoggerFactory.getILoggerFactory());
+
+        unconfigured.start();
+
+        assertFalse(unconfigured.isStarted());
+    }
+
+    private void start() {
+        appender.start();
+        logger.addAppender(appender);
+        other.addAppender(appender);
+    }
+}
@@ -0,0 +1,88 @@
+package com.path.variable.commons.slack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlackBroadcasterTest {
+
+    private SlackStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SlackStubServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void postsConcurrently() {
+        server.delay(300);
+        try (var broadcaster = SlackBroadcaster.builder().hooks(hooks(10)).build()) {
+            var start = System.nanoTime();
+            var results = broadcaster.broadcastPlainText("incident");
+            var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            assertEquals(10, results.size());
+            assertTrue(results.stream().allMatch(BroadcastResult::isDelivered));
+            assertTrue(elapsed.toString(), elapsed.toMillis() < 1500);
+            assertEquals(10, server.requests().size());
+        }
+    }
+
+    @Test
+    public void limitsConcurrencyPerHost() {
+        server.delay(200);
+        try (var broadcaster = SlackBroadcaster.builder().hooks(hooks(4)).maxConcurrencyPerHost(1).build()) {
+            var start = System.nanoTime();
+            var results = broadcaster.broadcastPlainText("incident");
+
+            assertTrue(results.stream().allMatch(BroadcastResult::isDelivered));
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 800);
+        }
+    }
+
+    @Test
+    public void reportsTimeoutsAndFailuresPerTarget() {
+        server.delay(1000);
+        var targets = new ArrayList<SlackHook>(hooks(2));
+        targets.add(new SlackHook("http://127.0.0.1:1/hook", SlackTransport.shared(), SlackRetryPolicy.none()));
+        try (var broadcaster = SlackBroadcaster.builder().hooks(targets).timeout(Duration.ofMillis(300)).build()) {
+            var start = System.nanoTime();
+            var results = broadcaster.broadcastPlainText("incident");
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 900);
+            assertEquals(BroadcastResult.Status.TIMED_OUT, results.get(0).getStatus());
+            assertEquals(BroadcastResult.Status.TIMED_OUT, results.get(1).getStatus());
+            assertEquals(BroadcastResult.Status.FAILED, results.get(2).getStatus());
+            assertFalse(results.get(2).isDelivered());
+        }
+    }
+
+    @Test
+    public void fallsBackToPlatformThreads() {
+        try (var broadcaster = SlackBroadcaster.builder().hooks(hooks(3)).virtualThreads(false).build()) {
+            assertFalse(broadcaster.usesVirtualThreads());
+            assertTrue(broadcaster.broadcastPlainText("incident").stream().allMatch(BroadcastResult::isDelivered));
+        }
+    }
+
+    private List<SlackHook> hooks(int count) {
+        var hooks = new ArrayList<SlackHook>();
+        for (int i = 0; i < count; i++) {
+            hooks.add(new SlackHook(server.url() + "?channel=" + i, SlackTransport.shared(), SlackRetryPolicy.none()));
+        }
+        return hooks;
+    }
+}
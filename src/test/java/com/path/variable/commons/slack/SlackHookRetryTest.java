@@ -0,0 +1,196 @@
+package com.path.variable.commons.slack;
+
+import com.path.variable.commons.slack.exceptions.MessagingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SlackHookRetryTest {
+
+    private SlackStubServer server;
+
+    private SlackTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SlackStubServer();
+        transport = SlackTransport.builder().build();
+    }
+
+    @After
+    public void tearDown() {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    public void waitsForRetryAfterOnRateLimit() {
+        var calls = new AtomicInteger();
+        server.respondWith(() -> calls.incrementAndGet() <= 2 ? 429 : 200);
+        server.retryAfter("1");
+        var hook = new SlackHook(server.url(), transport, fastPolicy().build());
+
+        var start = System.nanoTime();
+        hook.sendPlainText("incident");
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(3, server.requests().size());
+        assertTrue(elapsed.toMillis() >= 1900);
+        assertEquals(1, hook.getMetrics().getSent());
+        assertEquals(2, hook.getMetrics().getRateLimited());
+        assertEquals(2, hook.getMetrics().getRetries());
+    }
+
+    @Test
+    public void pacesMessagesPerWebhook() {
+        var policy = fastPolicy().messagesPerSecond(10).burst(2).build();
+        var first = new SlackHook(server.url(), transport, policy);
+        var second = new SlackHook(server.url(), transport, policy);
+
+        var start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            first.sendPlainText("first " + i);
+            second.sendPlainText("second " + i);
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // 2 messages go out at once, the other 6 are paced 100ms apart
+        assertTrue(elapsed.toString(), elapsed.toMillis() >= 550);
+        assertEquals(8, first.getMetrics().getSent());
+    }
+
+    @Test
+    public void keepsPacingPerPolicy() {
+        var paced = new SlackHook(server.url(), transport, fastPolicy().messagesPerSecond(1).burst(1).build());
+        var unpaced = new SlackHook(server.url(), transport);
+
+        paced.sendPlainText("paced");
+        var start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            unpaced.sendPlainText("unpaced " + i);
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(elapsed.toString(), elapsed.toMillis() < 500);
+        assertEquals(1, paced.getMetrics().getSent());
+        assertEquals(3, unpaced.getMetrics().getSent());
+    }
+
+    @Test
+    public void sendsOnceWithoutPolicy() {
+        server.respondWith(() -> 503);
+        var hook = new SlackHook(server.url(), transport);
+
+        for (int i = 0; i < 5; i++) {
+            try {
+                hook.sendPlainText("incident " + i);
+                fail();
+            } catch (MessagingException e) {
+                // not retried
+            }
+        }
+
+        assertEquals(5, server.requests().size());
+        assertEquals(0, hook.getMetrics().getRetries());
+    }
+
+    @Test
+    public void dropsAfterMaxAttempts() {
+        server.respondWith(() -> 503);
+        var hook = new SlackHook(server.url(), transport, fastPolicy().maxAttempts(3).build());
+
+        try {
+            hook.sendPlainText("lost");
+            fail("expected the message to be dropped");
+        } catch (MessagingException e) {
+            assertTrue(e.getMessage().contains("3 attempts"));
+        }
+        assertEquals(3, server.requests().size());
+        assertEquals(2, hook.getMetrics().getRetries());
+        assertEquals(1, hook.getMetrics().getDropped());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() {
+        server.respondWith(() -> 404);
+        var hook = new SlackHook(server.url(), transport, fastPolicy().build());
+
+        try {
+            hook.sendPlainText("no_service");
+            fail("expected the message to be rejected");
+        } catch (MessagingException e) {
+            assertTrue(e.getMessage().contains("404"));
+        }
+        assertEquals(1, server.requests().size());
+    }
+
+    @Test
+    public void opensCircuitAfterConsecutiveFailures() throws Exception {
+        var healthy = new AtomicInteger();
+        server.respondWith(() -> healthy.get() == 1 ? 200 : 500);
+        var hook = new SlackHook(server.url(), transport, fastPolicy().maxAttempts(1)
+                                                                      .failureThreshold(2)
+                                                                      .openDuration(Duration.ofMillis(300))
+                                                                      .build());
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                hook.sendPlainText("down " + i);
+            } catch (MessagingException e) {
+                // expected
+            }
+        }
+        assertEquals(2, server.requests().size());
+        assertEquals(2, hook.getMetrics().getCircuitOpen());
+
+        healthy.set(1);
+        Thread.sleep(350);
+        hook.sendPlainText("trial");
+        hook.sendPlainText("closed again");
+        assertEquals(4, server.requests().size());
+    }
+
+    @Test
+    public void dropsMessagesThatCannotBeSentInTime() {
+        server.respondWith(() -> 429);
+        server.retryAfter("5");
+        var hook = new SlackHook(server.url(), transport, fastPolicy().maxDelay(Duration.ofSeconds(1)).build());
+
+        try {
+            hook.sendPlainText("too late");
+            fail("expected the message to be dropped");
+        } catch (MessagingException e) {
+            assertTrue(e.getMessage().contains("within"));
+        }
+        assertEquals(1, server.requests().size());
+        assertEquals(1, hook.getMetrics().getDropped());
+    }
+
+    @Test
+    public void droppedMessagesDoNotTakePacingSlots() {
+        var state = new WebhookState(fastPolicy().messagesPerSecond(10).burst(1).build());
+        var now = System.nanoTime();
+        var second = Duration.ofSeconds(1).toNanos();
+
+        assertEquals(0, state.reserve(now, now + second));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(WebhookState.NO_SLOT, state.reserve(now, now + Duration.ofMillis(50).toNanos()));
+        }
+
+        assertEquals(Duration.ofMillis(100).toNanos(), state.reserve(now, now + second));
+    }
+
+    private static SlackRetryPolicy.Builder fastPolicy() {
+        return SlackRetryPolicy.builder()
+                               .messagesPerSecond(0)
+                               .initialBackoff(Duration.ofMillis(10))
+                               .maxBackoff(Duration.ofMillis(50));
+    }
+}
@@ -0,0 +1,93 @@
+package com.path.variable.commons.slack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlackMessageTemplateTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final SlackMessageTemplate template = SlackMessageTemplate.builder()
+                                                                      .fallbackText("{service} is down")
+                                                                      .header("{service} is down")
+                                                                      .divider()
+                                                                      .section("*Status:* {status}",
+                                                                              "https://charts/{service}.png", "chart")
+                                                                      .fields("*Region*\n{region}", "*Since*\n{since}")
+                                                                      .context("Reported by {host}")
+                                                                      .build();
+
+    @Test
+    public void rendersBlockKitJson() throws Exception {
+        var json = mapper.readTree(template.render(Map.of("service", "orders", "status", "503",
+                "region", "eu-west-1", "since", "12:00", "host", "node-1")));
+
+        assertEquals("orders is down", json.get("text").asText());
+        var blocks = json.get("blocks");
+        assertEquals(5, blocks.size());
+        assertEquals("header", blocks.get(0).get("type").asText());
+        assertEquals("plain_text", blocks.get(0).get("text").get("type").asText());
+        assertEquals("divider", blocks.get(1).get("type").asText());
+        assertEquals("*Status:* 503", blocks.get(2).get("text").get("text").asText());
+        assertEquals("https://charts/orders.png", blocks.get(2).get("accessory").get("image_url").asText());
+        assertEquals("*Region*\neu-west-1", blocks.get(3).get("fields").get(0).get("text").asText());
+        assertEquals("Reported by node-1", blocks.get(4).get("elements").get(0).get("text").asText());
+    }
+
+    @Test
+    public void escapesValues() throws Exception {
+        var value = "\"quoted\" \\ back\nslash\t\u0001 caf\u00e9 \ud83d\ude00";
+        var values = new HashMap<String, Object>();
+        values.put("service", value);
+
+        var json = mapper.readTree(template.render(values));
+
+        assertEquals(value + " is down", json.get("text").asText());
+    }
+
+    @Test
+    public void keepsPlaceholdersWithoutValues() throws Exception {
+        var values = new HashMap<String, Object>();
+        values.put("status", null);
+
+        JsonNode blocks = mapper.readTree(template.render(values)).get("blocks");
+
+        assertEquals("{service} is down", blocks.get(0).get("text").get("text").asText());
+        assertEquals("*Status:* null", blocks.get(2).get("text").get("text").asText());
+    }
+
+    @Test
+    public void ignoresBracesThatAreNoPlaceholders() throws Exception {
+        var literal = SlackMessageTemplate.builder().section("{ } {a b} {} {x").build();
+
+        var json = mapper.readTree(literal.render(Map.of("x", "1")));
+
+        assertEquals("{ } {a b} {} {x", json.get("blocks").get(0).get("text").get("text").asText());
+        assertTrue(literal.getPlaceholders().isEmpty());
+    }
+
+    @Test
+    public void listsPlaceholders() {
+        assertEquals(List.of("service", "status", "region", "since", "host"),
+                List.copyOf(template.getPlaceholders()));
+    }
+
+    @Test
+    public void sendsRenderedTemplate() throws Exception {
+        try (var server = new SlackStubServer()) {
+            var hook = new SlackHook(server.url(), SlackTransport.shared(), SlackRetryPolicy.none());
+
+            hook.sendTemplate(template, Map.of("service", "orders"));
+
+            assertEquals("orders is down", mapper.readTree(server.requests().get(0)).get("text").asText());
+        }
+    }
+}
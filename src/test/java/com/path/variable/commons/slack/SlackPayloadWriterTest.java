@@ -0,0 +1,66 @@
+package com.path.variable.commons.slack;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SlackPayloadWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void writesMessagesLikeObjectMapper() throws Exception {
+        var message = new SlackMessage();
+        message.addSection().getText().setText("Deploy \"orders\" caf\u00e9 \u2603\n\t\u0001 <https://x|link>");
+        var image = message.addSection().getText();
+        image.setImage("https://example.com/chart.png", "chart");
+        message.addSection();
+
+        assertSameJson(message);
+        assertSameJson(new SlackMessage());
+    }
+
+    @Test
+    public void writesPlainTextLikeObjectMapper() throws Exception {
+        assertSameJson(singletonMap("text", (Object) "plain \\ text \ud83d\ude00"));
+    }
+
+    @Test
+    public void fallsBackToObjectWriterForOtherPayloads() throws Exception {
+        assertSameJson(Map.of("text", "fallback", "channel", "#alerts"));
+        assertSameJson(singletonMap("text", (Object) null));
+    }
+
+    @Test
+    public void reusesBufferAcrossPayloads() throws Exception {
+        var large = new SlackMessage();
+        for (int i = 0; i < 50; i++) {
+            large.addSection().getText().setText("line " + i);
+        }
+        assertSameJson(large);
+        assertSameJson(singletonMap("text", (Object) "short"));
+        assertSameJson(singletonMap("text", (Object) "lone \ud83d surrogate \ude00"));
+    }
+
+    @Test
+    public void entityOutlivesTheNextPayload() throws Exception {
+        var first = SlackPayloadWriter.toEntity(singletonMap("text", (Object) "first"));
+        SlackPayloadWriter.toEntity(singletonMap("text", (Object) "second"));
+
+        assertEquals("{\"text\":\"first\"}", new String(EntityUtils.toByteArray(first), UTF_8));
+    }
+
+    private void assertSameJson(Object payload) throws Exception {
+        var entity = SlackPayloadWriter.toEntity(payload);
+
+        assertArrayEquals(mapper.writeValueAsString(payload).getBytes(UTF_8), EntityUtils.toByteArray(entity));
+        assertEquals("application/json; charset=UTF-8", entity.getContentType().getValue());
+    }
+}
@@ -0,0 +1,217 @@
+package com.path.variable.commons.slack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlackSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SlackStubServer server;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SlackStubServer();
+        directory = folder.newFolder("spool").toPath();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void deliversInOrder() throws Exception {
+        try (var spool = spool(liveHook()).build()) {
+            for (int i = 0; i < 20; i++) {
+                spool.sendPlainText("alert " + i);
+            }
+
+            await(() -> spool.getDeliveredCount() == 20);
+        }
+        assertEquals(expectedTexts(0, 20), server.requests());
+    }
+
+    @Test
+    public void replaysWhenDeliveryRecovers() throws Exception {
+        server.respondWith(() -> 503);
+        try (var spool = spool(liveHook()).build()) {
+            for (int i = 0; i < 5; i++) {
+                spool.sendPlainText("alert " + i);
+            }
+            await(() -> server.requests().size() >= 3);
+            assertEquals(0, spool.getDeliveredCount());
+
+            server.respondWith(() -> 200);
+            await(() -> spool.getDeliveredCount() == 5);
+        }
+        var delivered = server.requests().subList(server.requests().size() - 5, server.requests().size());
+        assertEquals(expectedTexts(0, 5), delivered);
+    }
+
+    @Test
+    public void resendsUndeliveredMessagesAfterRestart() throws Exception {
+        var deadHook = new SlackHook("http://127.0.0.1:1/hook", SlackTransport.shared(), SlackRetryPolicy.none());
+        try (var spool = spool(deadHook).build()) {
+            for (int i = 0; i < 10; i++) {
+                spool.sendPlainText("alert " + i);
+            }
+        }
+
+        try (var spool = spool(liveHook()).build()) {
+            spool.sendPlainText("alert 10");
+            await(() -> spool.getDeliveredCount() == 11);
+        }
+        assertEquals(expectedTexts(0, 11), server.requests());
+
+        try (var spool = spool(liveHook()).build()) {
+            Thread.sleep(200);
+            assertEquals(0, spool.getDeliveredCount());
+        }
+    }
+
+    @Test
+    public void discardsTornRecords() throws Exception {
+        var deadHook = new SlackHook("http://127.0.0.1:1/hook", SlackTransport.shared(), SlackRetryPolicy.none());
+        try (var spool = spool(deadHook).build()) {
+            spool.sendPlainText("alert 0");
+            spool.sendPlainText("alert 1");
+        }
+        // a record whose payload did not make it to disk before a crash
+        var segment = Files.list(directory).filter(file -> SpoolSegment.indexOf(file) >= 0).findFirst().get();
+        var end = ("{\"text\":\"alert 0\"}".length() + SpoolSegment.HEADER) * 2;
+        try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(end);
+            file.writeInt(20);
+            file.writeInt(12345);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        try (var spool = spool(liveHook()).build()) {
+            spool.sendPlainText("alert 2");
+            await(() -> spool.getDeliveredCount() == 3);
+        }
+        assertEquals(expectedTexts(0, 3), server.requests());
+    }
+
+    @Test
+    public void rotatesAndCapsSegments() throws Exception {
+        server.respondWith(() -> 503);
+        try (var spool = spool(liveHook()).segmentSize(256).maxSegments(3).build()) {
+            for (int i = 0; i < 100; i++) {
+                spool.sendPlainText("alert " + i);
+            }
+
+            assertEquals(3, spool.getSegmentCount());
+            assertTrue(spool.getDroppedCount() > 0);
+            assertEquals(100, spool.getAppendedCount());
+
+            server.respondWith(() -> 200);
+            await(() -> server.requests().stream().anyMatch(request -> request.contains("alert 99")));
+            await(() -> spool.getSegmentCount() == 1);
+        }
+    }
+
+    @Test
+    public void preparesNextSegmentAhead() throws Exception {
+        server.respondWith(() -> 503);
+        try (var spool = spool(liveHook()).segmentSize(256).build()) {
+            await(() -> segmentFiles() == 2);
+            assertEquals(1, spool.getSegmentCount());
+
+            for (int i = 0; i < 10; i++) {
+                spool.sendPlainText("alert " + i);
+            }
+            await(() -> segmentFiles() == spool.getSegmentCount() + 1);
+
+            server.respondWith(() -> 200);
+            await(() -> spool.getDeliveredCount() == 10);
+        }
+        assertEquals(expectedTexts(0, 10), server.requests().subList(server.requests().size() - 10,
+                server.requests().size()));
+        assertEquals(1, segmentFiles());
+    }
+
+    @Test
+    public void dropsNewestWhenFull() throws Exception {
+        server.respondWith(() -> 503);
+        try (var spool = spool(liveHook()).segmentSize(256)
+                                           .maxSegments(2)
+                                           .overflowPolicy(OverflowPolicy.DROP_NEWEST)
+                                           .build()) {
+            for (int i = 0; i < 100; i++) {
+                spool.sendPlainText("alert " + i);
+            }
+
+            assertEquals(100, spool.getAppendedCount() + spool.getDroppedCount());
+            server.respondWith(() -> 200);
+            await(() -> spool.getDeliveredCount() == spool.getAppendedCount());
+        }
+        assertTrue(server.requests().stream().anyMatch(request -> request.contains("alert 0\"")));
+    }
+
+    @Test
+    public void skipsRejectedMessages() throws Exception {
+        server.respondWith(() -> server.requests().size() == 1 ? 400 : 200);
+        try (var spool = spool(liveHook()).build()) {
+            spool.sendPlainText("invalid");
+            spool.sendPlainText("valid");
+
+            await(() -> spool.getDeliveredCount() == 1);
+            assertEquals(1, spool.getRejectedCount());
+        }
+    }
+
+    private SlackSpool.Builder spool(SlackHook hook) {
+        return SlackSpool.builder(hook, directory).retryInterval(Duration.ofMillis(20));
+    }
+
+    private SlackHook liveHook() {
+        return new SlackHook(server.url(), SlackTransport.shared(), SlackRetryPolicy.none());
+    }
+
+    private static List<String> expectedTexts(int from, int to) {
+        var texts = new ArrayList<String>();
+        for (int i = from; i < to; i++) {
+            texts.add("{\"text\":\"alert " + i + "\"}");
+        }
+        return texts;
+    }
+
+    private long segmentFiles() {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> SpoolSegment.indexOf(file) >= 0).count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.path.variable.commons.slack;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A local stand-in for the Slack webhook endpoint that records every request body.
+ */
+class SlackStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private volatile IntSupplier status = () -> 200;
+
+    private volatile long delayMillis;
+
+    private volatile String retryAfter;
+
+    SlackStubServer() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            try (exchange) {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                requests.add(new String(exchange.getRequestBody().readAllBytes(), UTF_8));
+                sleep(delayMillis);
+                var body = "ok".getBytes(UTF_8);
+                var code = status.getAsInt();
+                if (code == 429 && retryAfter != null) {
+                    exchange.getResponseHeaders().add("Retry-After", retryAfter);
+                }
+                exchange.sendResponseHeaders(code, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+
+    List<String> requests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of distinct client connections the requests arrived on
+     */
+    int connections() {
+        return clientPorts.size();
+    }
+
+    void respondWith(IntSupplier status) {
+        this.status = status;
+    }
+
+    /**
+     * Sets the Retry-After header sent with 429 responses.
+     */
+    void retryAfter(String retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    void delay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
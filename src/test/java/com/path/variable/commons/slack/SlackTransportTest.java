@@ -0,0 +1,68 @@
+package com.path.variable.commons.slack;
+
+import com.path.variable.commons.slack.exceptions.MessagingException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlackTransportTest {
+
+    private SlackStubServer server;
+
+    private SlackTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SlackStubServer();
+        transport = SlackTransport.builder().maxConnectionsPerRoute(2).build();
+    }
+
+    @After
+    public void tearDown() {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    public void reusesConnectionsAcrossHooks() {
+        var alerts = new SlackHook(server.url(), transport, SlackRetryPolicy.none());
+        var audit = new SlackHook(server.url(), transport, SlackRetryPolicy.none());
+
+        for (int i = 0; i < 10; i++) {
+            alerts.sendPlainText("alert " + i);
+            audit.sendPlainText("audit " + i);
+        }
+
+        assertEquals(20, server.requests().size());
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    public void sendsUtf8Json() {
+        new SlackHook(server.url(), transport).sendPlainText("caf\u00e9");
+
+        assertTrue(server.requests().get(0).contains("caf\u00e9"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sharedTransportCannotBeClosed() {
+        SlackTransport.shared().close();
+    }
+
+    @Test
+    public void timesOutSlowResponses() {
+        server.delay(1000);
+        try (var impatient = SlackTransport.builder().readTimeout(Duration.ofMillis(100)).build()) {
+            new SlackHook(server.url(), impatient, SlackRetryPolicy.none()).sendPlainText("slow");
+            throw new AssertionError("expected a read timeout");
+        } catch (MessagingException e) {
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+        }
+    }
+}